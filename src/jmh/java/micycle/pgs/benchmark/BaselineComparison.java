@@ -0,0 +1,142 @@
+package micycle.pgs.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files (in CSV format), reporting the relative change
+ * of each benchmark (for each parameter combination) between a baseline run and
+ * a current run.
+ * <p>
+ * Can be run standalone: <code>BaselineComparison baseline.csv current.csv
+ * [threshold]</code>.
+ *
+ * @author Michael Carleton
+ */
+public final class BaselineComparison {
+
+	private BaselineComparison() {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: BaselineComparison <baseline.csv> <current.csv> [threshold]");
+			return;
+		}
+		final double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.1;
+		compare(new File(args[0]), new File(args[1]), threshold, System.out);
+	}
+
+	/**
+	 * Prints a comparison of each benchmark present in both files.
+	 *
+	 * @param threshold relative slowdown (e.g. 0.1 = 10%) beyond which a benchmark
+	 *                  is reported as a regression
+	 * @return the number of regressions found
+	 */
+	public static int compare(File baseline, File current, double threshold, PrintStream out) throws IOException {
+		final Map<String, Result> before = read(baseline);
+		final Map<String, Result> after = read(current);
+
+		int regressions = 0;
+		out.format("%n%-80s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+		for (Map.Entry<String, Result> entry : after.entrySet()) {
+			final Result b = before.get(entry.getKey());
+			final Result a = entry.getValue();
+			if (b == null) {
+				out.format("%-80s %14s %14.3f %9s%n", entry.getKey(), "-", a.score, "new");
+				continue;
+			}
+			final double change = (a.score - b.score) / b.score;
+			// for throughput modes a higher score is better; for time modes, lower
+			final double slowdown = a.higherIsBetter() ? -change : change;
+			final boolean regression = slowdown > threshold;
+			regressions += regression ? 1 : 0;
+			out.format("%-80s %14.3f %14.3f %+8.1f%% %s%n", entry.getKey(), b.score, a.score, change * 100,
+					regression ? "REGRESSION" : slowdown < -threshold ? "improved" : "");
+		}
+		out.format("%d regression(s) beyond %.0f%%.%n", regressions, threshold * 100);
+		return regressions;
+	}
+
+	/**
+	 * Reads JMH CSV results, keyed by benchmark name, mode and parameter values.
+	 */
+	private static Map<String, Result> read(File file) throws IOException {
+		final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		final Map<String, Result> results = new LinkedHashMap<>();
+		if (lines.isEmpty()) {
+			return results;
+		}
+		final List<String> header = parseLine(lines.get(0));
+		final int benchmark = header.indexOf("Benchmark");
+		final int mode = header.indexOf("Mode");
+		final int score = header.indexOf("Score");
+		final int unit = header.indexOf("Unit");
+
+		for (String line : lines.subList(1, lines.size())) {
+			final List<String> fields = parseLine(line);
+			if (fields.size() < header.size()) {
+				continue;
+			}
+			final StringBuilder key = new StringBuilder(fields.get(benchmark)).append(" [").append(fields.get(mode));
+			for (int i = 0; i < header.size(); i++) {
+				if (header.get(i).startsWith("Param: ")) {
+					key.append(", ").append(header.get(i).substring(7)).append('=').append(fields.get(i));
+				}
+			}
+			key.append(']');
+			results.put(key.toString(), new Result(Double.parseDouble(fields.get(score)), fields.get(unit)));
+		}
+		return results;
+	}
+
+	/**
+	 * Splits a CSV line into its (unquoted) fields.
+	 */
+	private static List<String> parseLine(String line) {
+		final List<String> fields = new ArrayList<>();
+		final StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			final char c = line.charAt(i);
+			if (c == '"') {
+				if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else {
+					quoted = !quoted;
+				}
+			} else if (c == ',' && !quoted) {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	private static class Result {
+		final double score;
+		final String unit;
+
+		Result(double score, String unit) {
+			this.score = score;
+			this.unit = unit;
+		}
+
+		boolean higherIsBetter() {
+			return unit.endsWith("/s") || unit.endsWith("/ms") || unit.endsWith("/us") || unit.endsWith("/ns") || unit.endsWith("/min");
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+package micycle.pgs.benchmark;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import micycle.pgs.PGS_Construction;
+import micycle.pgs.PGS_PointSet;
+import micycle.pgs.PGS_Triangulation;
+import micycle.pgs.PGS_Voronoi;
+import processing.core.PConstants;
+import processing.core.PShape;
+import processing.core.PVector;
+
+/**
+ * Deterministic (seeded) benchmark inputs, generated via the library itself.
+ *
+ * @author Michael Carleton
+ */
+final class BenchmarkInputs {
+
+	/** Side length of the square region in which inputs are generated. */
+	static final double EXTENT = 1000;
+
+	private BenchmarkInputs() {
+	}
+
+	/**
+	 * @return n uniformly random points within the benchmark extent
+	 */
+	static List<PVector> points(int n, long seed) {
+		return PGS_PointSet.random(0, 0, EXTENT, EXTENT, n, seed);
+	}
+
+	/**
+	 * @return a random simple polygon having roughly the given number of vertices,
+	 *         spanning the benchmark extent
+	 */
+	static PShape polygon(int vertices, long seed) {
+		return PGS_Construction.createRandomPolygon(vertices, EXTENT, EXTENT, seed);
+	}
+
+	/**
+	 * @return a conforming polygonal mesh (a Voronoi diagram) having roughly the
+	 *         given number of faces
+	 */
+	static PShape voronoiMesh(int faces, long seed) {
+		return PGS_Voronoi.innerVoronoi(points(faces, seed), new double[] { 0, 0, EXTENT, EXTENT });
+	}
+
+	/**
+	 * @return a triangulation of random points, as a GROUP shape of triangles
+	 */
+	static PShape triangleMesh(int points, long seed) {
+		return PGS_Triangulation.toPShape(PGS_Triangulation.delaunayTriangulationMesh(points(points, seed)));
+	}
+
+	/**
+	 * @return a star-like polygon made of (unflattened) cubic bezier curves, whose
+	 *         curves are large and gently curving
+	 */
+	static PShape bezierPolygon(int curves, long seed) {
+		final SplittableRandom random = new SplittableRandom(seed);
+		final double c = EXTENT / 2;
+		final PShape shape = new PShape(PShape.PATH);
+		shape.beginShape();
+		shape.vertex((float) (c + c), (float) c);
+		for (int i = 1; i <= curves; i++) {
+			final double a0 = 2 * Math.PI * (i - 1) / curves;
+			final double a1 = 2 * Math.PI * i / curves;
+			final double r = c * (0.6 + 0.4 * random.nextDouble());
+			final double end = i == curves ? c : r;
+			shape.bezierVertex((float) (c + r * Math.cos(a0 + (a1 - a0) / 3)), (float) (c + r * Math.sin(a0 + (a1 - a0) / 3)),
+					(float) (c + r * Math.cos(a1 - (a1 - a0) / 3)), (float) (c + r * Math.sin(a1 - (a1 - a0) / 3)),
+					(float) (c + end * Math.cos(a1)), (float) (c + end * Math.sin(a1)));
+		}
+		shape.endShape(PConstants.CLOSE);
+		return shape;
+	}
+
+}
@@ -0,0 +1,81 @@
+package micycle.pgs.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the PGS benchmarks, writing results to a CSV file and (optionally)
+ * comparing them against a baseline CSV from an earlier run.
+ * <p>
+ * Arguments (all optional):
+ * <ul>
+ * <li>one or more regexes selecting benchmarks to run (default: all);</li>
+ * <li><code>-out &lt;csv&gt;</code>: where to write results (default:
+ * <code>target/jmh-result.csv</code>);</li>
+ * <li><code>-baseline &lt;csv&gt;</code>: results of an earlier run to compare
+ * against (see {@link BaselineComparison});</li>
+ * <li><code>-threshold &lt;fraction&gt;</code>: relative slowdown reported as a
+ * regression (default: 0.1);</li>
+ * <li><code>-failOnRegression</code>: exit with a non-zero status when any
+ * regression is found.</li>
+ * </ul>
+ *
+ * @author Michael Carleton
+ */
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(String[] args) throws RunnerException, IOException {
+		final List<String> includes = new ArrayList<>();
+		String out = "target/jmh-result.csv";
+		String baseline = null;
+		double threshold = 0.1;
+		boolean failOnRegression = false;
+
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "-out" :
+					out = args[++i];
+					break;
+				case "-baseline" :
+					baseline = args[++i];
+					break;
+				case "-threshold" :
+					threshold = Double.parseDouble(args[++i]);
+					break;
+				case "-failOnRegression" :
+					failOnRegression = true;
+					break;
+				default :
+					includes.add(args[i]);
+			}
+		}
+
+		final ChainedOptionsBuilder options = new OptionsBuilder().resultFormat(ResultFormatType.CSV).result(out);
+		if (includes.isEmpty()) {
+			options.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+		} else {
+			includes.forEach(options::include);
+		}
+		new File(out).getAbsoluteFile().getParentFile().mkdirs();
+		new Runner(options.build()).run();
+
+		if (baseline != null) {
+			final int regressions = BaselineComparison.compare(new File(baseline), new File(out), threshold, System.out);
+			if (failOnRegression && regressions > 0) {
+				System.exit(1);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,142 @@
+package micycle.pgs.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.locationtech.jts.geom.Geometry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import micycle.pgs.PGS_Conversion;
+import micycle.pgs.PGS_ShapeBoolean;
+import micycle.pgs.PGS_Transformation;
+import processing.core.PShape;
+
+/**
+ * Benchmarks {@link PGS_Conversion} in both directions, including its optional
+ * conversion modes (style preservation, packed coordinates and adaptive curve
+ * flattening).
+ *
+ * @author Michael Carleton
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class MeshState {
+
+		@Param({ "1000", "50000" })
+		public int faces;
+
+		@Param({ "1337" })
+		public long seed;
+
+		@Param({ "true", "false" })
+		public boolean preserveStyle;
+
+		@Param({ "false", "true" })
+		public boolean packedCoordinates;
+
+		PShape mesh;
+		Geometry geometry;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			mesh = BenchmarkInputs.voronoiMesh(faces, seed);
+			geometry = PGS_Conversion.fromPShape(mesh);
+			PGS_Conversion.PRESERVE_STYLE = preserveStyle;
+			PGS_Conversion.PACKED_COORDINATES = packedCoordinates;
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			PGS_Conversion.PRESERVE_STYLE = true;
+			PGS_Conversion.PACKED_COORDINATES = false;
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class CurveState {
+
+		@Param({ "16", "256" })
+		public int curves;
+
+		@Param({ "1337" })
+		public long seed;
+
+		/** 0 = legacy fixed-distance sampling. */
+		@Param({ "0", "0.1", "0.5" })
+		public double maxDeviation;
+
+		PShape curve;
+		PShape offsetCurve;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			curve = BenchmarkInputs.bezierPolygon(curves, seed);
+			offsetCurve = PGS_Transformation.translate(BenchmarkInputs.bezierPolygon(curves, seed + 1), 50, 50);
+			PGS_Conversion.CURVE_MAX_DEVIATION = maxDeviation;
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			PGS_Conversion.CURVE_MAX_DEVIATION = 0;
+		}
+	}
+
+	/**
+	 * Reports the vertex count of flattened curves alongside timings.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class VertexCounter {
+		public long vertices;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			vertices = 0;
+		}
+	}
+
+	@Benchmark
+	public Geometry fromPShapeMesh(MeshState state) {
+		return PGS_Conversion.fromPShape(state.mesh);
+	}
+
+	@Benchmark
+	public PShape toPShapeMesh(MeshState state) {
+		return PGS_Conversion.toPShape(state.geometry);
+	}
+
+	@Benchmark
+	public Geometry flattenCurves(CurveState state, VertexCounter counter) {
+		final Geometry g = PGS_Conversion.fromPShape(state.curve);
+		counter.vertices = g.getNumPoints();
+		return g;
+	}
+
+	/**
+	 * Overlay of two flattened curved shapes, to show the downstream cost of
+	 * curve vertex counts.
+	 */
+	@Benchmark
+	public PShape flattenedCurveUnion(CurveState state) {
+		return PGS_ShapeBoolean.union(state.curve, state.offsetCurve);
+	}
+
+}
@@ -0,0 +1,85 @@
+package micycle.pgs.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import micycle.pgs.PGS_Coloring;
+import micycle.pgs.PGS_Coloring.ColoringAlgorithm;
+import micycle.pgs.PGS_Conversion;
+import micycle.pgs.PGS_Meshing;
+import micycle.pgs.commons.FlatMesh;
+import processing.core.PShape;
+
+/**
+ * Benchmarks mesh processing in {@link PGS_Meshing} and {@link PGS_Coloring},
+ * on both GROUP PShape and {@link FlatMesh} representations.
+ *
+ * @author Michael Carleton
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MeshingBenchmark {
+
+	@Param({ "1000", "50000" })
+	public int faces;
+
+	@Param({ "1337" })
+	public long seed;
+
+	PShape mesh;
+	FlatMesh flatMesh;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		mesh = BenchmarkInputs.voronoiMesh(faces, seed);
+		flatMesh = FlatMesh.fromPShape(mesh);
+	}
+
+	@Benchmark
+	public PShape smoothMesh() {
+		return PGS_Meshing.smoothMesh(mesh, 10, true, 0, 0);
+	}
+
+	@Benchmark
+	public FlatMesh smoothFlatMesh() {
+		return PGS_Meshing.smoothMesh(flatMesh, 10, true);
+	}
+
+	@Benchmark
+	public Map<PShape, Integer> colorMesh() {
+		return PGS_Coloring.colorMesh(mesh, ColoringAlgorithm.DSATUR);
+	}
+
+	@Benchmark
+	public int[] colorFlatMesh() {
+		return PGS_Coloring.colorMesh(flatMesh, ColoringAlgorithm.DSATUR);
+	}
+
+	@Benchmark
+	public Object dualGraph() {
+		return PGS_Conversion.toDualGraph(mesh);
+	}
+
+	@Benchmark
+	public Object dualGraphFlatMesh() {
+		return PGS_Conversion.toDualGraph(flatMesh);
+	}
+
+}
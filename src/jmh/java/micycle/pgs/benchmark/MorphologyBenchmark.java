@@ -0,0 +1,70 @@
+package micycle.pgs.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import micycle.pgs.PGS_Hull;
+import micycle.pgs.PGS_Morphology;
+import micycle.pgs.PGS_Transformation;
+import processing.core.PShape;
+
+/**
+ * Benchmarks single-shape operations in {@link PGS_Morphology},
+ * {@link PGS_Transformation} and {@link PGS_Hull}.
+ *
+ * @author Michael Carleton
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MorphologyBenchmark {
+
+	@Param({ "100", "10000" })
+	public int vertices;
+
+	@Param({ "1337" })
+	public long seed;
+
+	PShape polygon;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		polygon = BenchmarkInputs.polygon(vertices, seed);
+	}
+
+	@Benchmark
+	public PShape buffer() {
+		return PGS_Morphology.buffer(polygon, 10);
+	}
+
+	@Benchmark
+	public PShape simplify() {
+		return PGS_Morphology.simplify(polygon, 2);
+	}
+
+	@Benchmark
+	public PShape rotate() {
+		return PGS_Transformation.rotateAroundCenter(polygon, 1);
+	}
+
+	@Benchmark
+	public PShape convexHull() {
+		return PGS_Hull.convexHull(polygon);
+	}
+
+}
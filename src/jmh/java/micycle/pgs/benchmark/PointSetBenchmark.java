@@ -0,0 +1,64 @@
+package micycle.pgs.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import micycle.pgs.PGS_PointSet;
+import processing.core.PVector;
+
+/**
+ * Benchmarks point set generation in {@link PGS_PointSet}.
+ *
+ * @author Michael Carleton
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PointSetBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int points;
+
+	@Param({ "1337" })
+	public long seed;
+
+	List<PVector> sites;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		sites = BenchmarkInputs.points(points, seed);
+	}
+
+	@Benchmark
+	public List<PVector> random() {
+		return PGS_PointSet.random(0, 0, BenchmarkInputs.EXTENT, BenchmarkInputs.EXTENT, points, seed);
+	}
+
+	@Benchmark
+	public List<PVector> poissonN() {
+		return PGS_PointSet.poissonN(0, 0, BenchmarkInputs.EXTENT, BenchmarkInputs.EXTENT, points, seed);
+	}
+
+	@Benchmark
+	public List<PVector> hilbertSort() {
+		return PGS_PointSet.hilbertSort(new ArrayList<>(sites));
+	}
+
+}
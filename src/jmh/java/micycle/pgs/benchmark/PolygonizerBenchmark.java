@@ -0,0 +1,58 @@
+package micycle.pgs.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import micycle.pgs.PGS_Conversion;
+import micycle.pgs.commons.FastPolygonizer;
+import micycle.pgs.commons.PEdge;
+import processing.core.PShape;
+
+/**
+ * Benchmarks {@link FastPolygonizer}, which underpins many mesh-producing
+ * methods.
+ *
+ * @author Michael Carleton
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PolygonizerBenchmark {
+
+	/** Number of faces in the mesh whose edges are polygonized. */
+	@Param({ "1000", "50000" })
+	public int faces;
+
+	@Param({ "1337" })
+	public long seed;
+
+	List<PEdge> edges;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		edges = new ArrayList<>(PGS_Conversion.toGraph(BenchmarkInputs.voronoiMesh(faces, seed)).edgeSet());
+	}
+
+	@Benchmark
+	public PShape polygonize() {
+		return FastPolygonizer.polygonize(edges);
+	}
+
+}
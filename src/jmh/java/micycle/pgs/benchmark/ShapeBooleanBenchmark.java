@@ -0,0 +1,177 @@
+package micycle.pgs.benchmark;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import micycle.pgs.PGS_Construction;
+import micycle.pgs.PGS_ShapeBoolean;
+import micycle.pgs.PGS_ShapeBoolean.BooleanOperation;
+import micycle.pgs.PGS_Transformation;
+import micycle.pgs.commons.BooleanAccumulator;
+import processing.core.PShape;
+
+/**
+ * Benchmarks {@link PGS_ShapeBoolean} operations between pairs of polygons and
+ * between meshes and polygons.
+ *
+ * @author Michael Carleton
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShapeBooleanBenchmark {
+
+	/** Vertex count of each polygon; number of faces of the mesh. */
+	@Param({ "100", "10000" })
+	public int size;
+
+	@Param({ "1337" })
+	public long seed;
+
+	PShape a;
+	PShape b;
+	PShape mesh;
+	PShape otherMesh;
+	PShape area;
+	List<PShape> circles;
+	PShape nearlyCoincident;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		a = BenchmarkInputs.polygon(size, seed);
+		b = BenchmarkInputs.polygon(size, seed + 1);
+		mesh = BenchmarkInputs.voronoiMesh(size, seed);
+		otherMesh = BenchmarkInputs.voronoiMesh(Math.max(4, size / 10), seed + 2); // coarser "zones" mesh
+		area = PGS_Construction.createSupercircle(BenchmarkInputs.EXTENT / 2, BenchmarkInputs.EXTENT / 2, BenchmarkInputs.EXTENT * 0.8,
+				BenchmarkInputs.EXTENT * 0.8, 3);
+		// a near-degenerate pair: edges of a and this shape are almost coincident
+		nearlyCoincident = PGS_Transformation.rotateAroundCenter(a, 1e-9);
+		circles = BenchmarkInputs.points(size, seed + 3).stream().map(p -> PGS_Construction.createSupercircle(p.x, p.y, 20, 20, 2))
+				.collect(Collectors.toList());
+	}
+
+	@Benchmark
+	public PShape union() {
+		return PGS_ShapeBoolean.union(a, b);
+	}
+
+	@Benchmark
+	public PShape intersect() {
+		return PGS_ShapeBoolean.intersect(a, b);
+	}
+
+	@Benchmark
+	public PShape subtract() {
+		return PGS_ShapeBoolean.subtract(a, b);
+	}
+
+	/**
+	 * Intersection, difference and symmetric difference of the same pair, via
+	 * separate overlays.
+	 */
+	@Benchmark
+	public void threeOperationsSeparate(Blackhole bh) {
+		bh.consume(PGS_ShapeBoolean.intersect(a, b));
+		bh.consume(PGS_ShapeBoolean.subtract(a, b));
+		bh.consume(PGS_ShapeBoolean.symDifference(a, b));
+	}
+
+	/**
+	 * Intersection, difference and symmetric difference of the same pair, from a
+	 * single noding/labelling pass.
+	 */
+	@Benchmark
+	public Map<BooleanOperation, PShape> threeOperationsShared() {
+		return PGS_ShapeBoolean.overlay(a, b, BooleanOperation.INTERSECTION, BooleanOperation.DIFFERENCE, BooleanOperation.SYMDIFFERENCE);
+	}
+
+	@Benchmark
+	public PShape unionNearlyCoincident() {
+		return PGS_ShapeBoolean.union(a, nearlyCoincident);
+	}
+
+	@Benchmark
+	public PShape unionNearlyCoincidentFixedPrecision() {
+		return PGS_ShapeBoolean.overlay(a, nearlyCoincident, BooleanOperation.UNION, 1e-3);
+	}
+
+	/**
+	 * Paints every circle onto a growing canvas, one union at a time.
+	 */
+	@Benchmark
+	public PShape paintRepeatedUnion() {
+		PShape canvas = circles.get(0);
+		for (int i = 1; i < Math.min(1000, circles.size()); i++) {
+			canvas = PGS_ShapeBoolean.union(canvas, circles.get(i));
+		}
+		return canvas;
+	}
+
+	/**
+	 * Paints every circle onto a canvas held by an accumulator.
+	 */
+	@Benchmark
+	public PShape paintAccumulator() {
+		final BooleanAccumulator accumulator = PGS_ShapeBoolean.accumulator(BenchmarkInputs.EXTENT / 10);
+		for (int i = 0; i < Math.min(1000, circles.size()); i++) {
+			accumulator.union(circles.get(i));
+		}
+		return accumulator.snapshot();
+	}
+
+	@Benchmark
+	public PShape unionCirclesSequential() {
+		final int threshold = PGS_ShapeBoolean.PARALLEL_UNION_THRESHOLD;
+		PGS_ShapeBoolean.PARALLEL_UNION_THRESHOLD = Integer.MAX_VALUE;
+		try {
+			return PGS_ShapeBoolean.union(circles);
+		} finally {
+			PGS_ShapeBoolean.PARALLEL_UNION_THRESHOLD = threshold;
+		}
+	}
+
+	@Benchmark
+	public PShape unionCirclesParallel() {
+		return PGS_ShapeBoolean.union(circles, 0);
+	}
+
+	@Benchmark
+	public PShape unionMesh() {
+		return PGS_ShapeBoolean.unionMesh(mesh);
+	}
+
+	@Benchmark
+	public PShape intersectMesh() {
+		return PGS_ShapeBoolean.intersectMesh(mesh, area);
+	}
+
+	@Benchmark
+	public PShape subtractMesh() {
+		return PGS_ShapeBoolean.subtractMesh(mesh, area);
+	}
+
+	@Benchmark
+	public PShape intersectMeshes() {
+		return PGS_ShapeBoolean.intersectMeshes(otherMesh, mesh);
+	}
+
+}
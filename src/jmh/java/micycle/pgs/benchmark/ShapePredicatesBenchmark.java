@@ -0,0 +1,173 @@
+package micycle.pgs.benchmark;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleWeightedGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import micycle.pgs.PGS_ShapePredicates;
+import micycle.pgs.PGS_Transformation;
+import micycle.pgs.commons.MeshLocator;
+import micycle.pgs.commons.PreparedPShape;
+import processing.core.PShape;
+import processing.core.PVector;
+
+/**
+ * Benchmarks {@link PGS_ShapePredicates} queries.
+ *
+ * @author Michael Carleton
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShapePredicatesBenchmark {
+
+	/** Vertex count of the polygon; number of faces of the mesh. */
+	@Param({ "100", "10000" })
+	public int size;
+
+	@Param({ "1337" })
+	public long seed;
+
+	PShape polygon;
+	PreparedPShape preparedPolygon;
+	PShape other;
+	PShape mesh;
+	MeshLocator meshLocator;
+	List<PVector> queries;
+	double[] manyQueries;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		polygon = BenchmarkInputs.polygon(size, seed);
+		preparedPolygon = PGS_ShapePredicates.prepare(polygon);
+		other = PGS_Transformation.scale(BenchmarkInputs.polygon(size, seed + 2), 0.25);
+		mesh = BenchmarkInputs.voronoiMesh(size, seed);
+		meshLocator = PGS_ShapePredicates.meshLocator(mesh);
+		queries = BenchmarkInputs.points(100, seed + 1);
+		manyQueries = new double[2 * 1_000_000];
+		final SplittableRandom random = new SplittableRandom(seed + 3);
+		for (int i = 0; i < manyQueries.length; i++) {
+			manyQueries[i] = random.nextDouble(BenchmarkInputs.EXTENT);
+		}
+	}
+
+	@Benchmark
+	public int containsPoint() {
+		int inside = 0;
+		for (PVector p : queries) {
+			inside += PGS_ShapePredicates.containsPoint(polygon, p) ? 1 : 0;
+		}
+		return inside;
+	}
+
+	@Benchmark
+	public int containsPointPrepared() {
+		int inside = 0;
+		for (PVector p : queries) {
+			inside += preparedPolygon.containsPoint(p) ? 1 : 0;
+		}
+		return inside;
+	}
+
+	/**
+	 * Classifies 1M points one at a time, against a prepared shape.
+	 */
+	@Benchmark
+	public int containsPointsLoop() {
+		int inside = 0;
+		for (int i = 0; i < manyQueries.length; i += 2) {
+			inside += preparedPolygon.containsPoint(manyQueries[i], manyQueries[i + 1]) ? 1 : 0;
+		}
+		return inside;
+	}
+
+	@Benchmark
+	public boolean[] containsPointsBatch() {
+		return PGS_ShapePredicates.containsPoints(preparedPolygon, manyQueries, false);
+	}
+
+	@Benchmark
+	public boolean[] containsPointsBatchHilbert() {
+		return PGS_ShapePredicates.containsPoints(preparedPolygon, manyQueries, true);
+	}
+
+	@Benchmark
+	public boolean intersect() {
+		return PGS_ShapePredicates.intersect(polygon, other);
+	}
+
+	@Benchmark
+	public boolean intersectPrepared() {
+		return preparedPolygon.intersects(other);
+	}
+
+	@Benchmark
+	public double distance() {
+		return PGS_ShapePredicates.distance(polygon, other);
+	}
+
+	@Benchmark
+	public double distancePrepared() {
+		return preparedPolygon.distance(other);
+	}
+
+	@Benchmark
+	public List<PVector> findContainedPoints() {
+		return PGS_ShapePredicates.findContainedPoints(polygon, queries);
+	}
+
+	@Benchmark
+	public int findContainingShape() {
+		int found = 0;
+		for (PVector p : queries) {
+			found += PGS_ShapePredicates.findContainingShape(mesh, p) != null ? 1 : 0;
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int findContainingShapeLocator() {
+		int found = 0;
+		for (PVector p : queries) {
+			found += meshLocator.locateIndex(p) != -1 ? 1 : 0;
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int[] findContainingShapeLocatorBatch() {
+		return meshLocator.locateIndices(queries);
+	}
+
+	/**
+	 * Intersection graph of the (adjacent) cells of a mesh.
+	 */
+	@Benchmark
+	public SimpleWeightedGraph<PShape, DefaultWeightedEdge> intersectionGraph() {
+		return PGS_ShapePredicates.intersectionGraph(meshLocator.getFaces(), true);
+	}
+
+	@Benchmark
+	public double area() {
+		return PGS_ShapePredicates.area(polygon);
+	}
+
+}
@@ -0,0 +1,81 @@
+package micycle.pgs.benchmark;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import micycle.pgs.PGS_Conversion;
+import processing.core.PShape;
+
+/**
+ * Benchmarks per-face style capture (reading a face's otherwise inaccessible
+ * fill color), as done for every face converted with
+ * {@link PGS_Conversion#PRESERVE_STYLE} enabled. The cached MethodHandle getter
+ * used by the library is compared against a per-call reflective field lookup.
+ * Scores are per face.
+ *
+ * @author Michael Carleton
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StyleBenchmark {
+
+	private static final int FACES = 1000;
+
+	@State(Scope.Benchmark)
+	public static class FaceState {
+
+		PShape[] faces;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			final List<PShape> children = PGS_Conversion.getChildren(BenchmarkInputs.voronoiMesh(FACES, 1337));
+			faces = new PShape[FACES];
+			for (int i = 0; i < FACES; i++) {
+				faces[i] = children.get(i % children.size());
+			}
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FACES)
+	public int fillColorHandle(FaceState state) {
+		int h = 0;
+		for (PShape face : state.faces) {
+			h += PGS_Conversion.getFillColor(face);
+		}
+		return h;
+	}
+
+	/**
+	 * The field lookup previously done on every style read.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(FACES)
+	public int fillColorReflective(FaceState state) throws ReflectiveOperationException {
+		int h = 0;
+		for (PShape face : state.faces) {
+			final Field f = PShape.class.getDeclaredField("fillColor");
+			f.setAccessible(true);
+			h += f.getInt(face);
+		}
+		return h;
+	}
+
+}
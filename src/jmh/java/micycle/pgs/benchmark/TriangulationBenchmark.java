@@ -0,0 +1,77 @@
+package micycle.pgs.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.tinfour.common.IIncrementalTin;
+
+import micycle.pgs.PGS_Triangulation;
+import micycle.pgs.commons.FlatMesh;
+import processing.core.PShape;
+import processing.core.PVector;
+
+/**
+ * Benchmarks {@link PGS_Triangulation} construction and conversion of
+ * triangulations.
+ *
+ * @author Michael Carleton
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TriangulationBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int points;
+
+	@Param({ "1337" })
+	public long seed;
+
+	List<PVector> sites;
+	PShape polygon;
+	IIncrementalTin tin;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		sites = BenchmarkInputs.points(points, seed);
+		polygon = BenchmarkInputs.polygon(Math.min(points, 5000), seed);
+		tin = PGS_Triangulation.delaunayTriangulationMesh(sites);
+	}
+
+	@Benchmark
+	public IIncrementalTin delaunayPoints() {
+		return PGS_Triangulation.delaunayTriangulationMesh(sites);
+	}
+
+	@Benchmark
+	public PShape delaunayConstrained() {
+		return PGS_Triangulation.delaunayTriangulation(polygon);
+	}
+
+	@Benchmark
+	public PShape toPShape() {
+		return PGS_Triangulation.toPShape(tin);
+	}
+
+	@Benchmark
+	public FlatMesh toFlatMesh() {
+		return PGS_Triangulation.toFlatMesh(tin);
+	}
+
+}
@@ -0,0 +1,132 @@
+package micycle.pgs.benchmark;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import micycle.pgs.PGS_Voronoi;
+import micycle.pgs.commons.FlatVoronoi;
+import micycle.pgs.commons.LloydRelaxation;
+import micycle.pgs.commons.PowerDiagram;
+import processing.core.PShape;
+import processing.core.PVector;
+
+/**
+ * Benchmarks {@link PGS_Voronoi} diagram construction.
+ *
+ * @author Michael Carleton
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VoronoiBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int sites;
+
+	@Param({ "1337" })
+	public long seed;
+
+	List<PVector> points;
+	float[] packedPoints;
+	double[] packedPointsDouble;
+	double[] bounds;
+	double[] weights;
+	FlatVoronoi flatVoronoi;
+	PowerDiagram powerDiagram;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		points = BenchmarkInputs.points(sites, seed);
+		bounds = new double[] { 0, 0, BenchmarkInputs.EXTENT, BenchmarkInputs.EXTENT };
+		packedPoints = new float[sites * 2];
+		packedPointsDouble = new double[sites * 2];
+		for (int i = 0; i < sites; i++) {
+			packedPoints[2 * i] = points.get(i).x;
+			packedPoints[2 * i + 1] = points.get(i).y;
+			packedPointsDouble[2 * i] = points.get(i).x;
+			packedPointsDouble[2 * i + 1] = points.get(i).y;
+		}
+		flatVoronoi = new FlatVoronoi(bounds);
+
+		// squared radii of up to about one average site spacing
+		final SplittableRandom random = new SplittableRandom(seed);
+		final double spacing = BenchmarkInputs.EXTENT / Math.sqrt(sites);
+		weights = new double[sites];
+		for (int i = 0; i < sites; i++) {
+			final double radius = random.nextDouble() * spacing;
+			weights[i] = radius * radius;
+		}
+		powerDiagram = new PowerDiagram(bounds);
+	}
+
+	@Benchmark
+	public PShape innerVoronoi() {
+		return PGS_Voronoi.innerVoronoi(points, bounds);
+	}
+
+	@Benchmark
+	public PShape innerVoronoiRelaxed() {
+		return PGS_Voronoi.innerVoronoi(points, bounds, 5);
+	}
+
+	/**
+	 * Same diagram as {@link #innerVoronoi()}, built from packed coordinates into
+	 * a flat mesh by a reused builder (as when rebuilt every frame).
+	 */
+	@Benchmark
+	public FlatVoronoi.Diagram flatVoronoi() {
+		return flatVoronoi.build(packedPoints);
+	}
+
+	/**
+	 * Same diagram as {@link #flatVoronoi()}, built in 4x4 tiles.
+	 */
+	@Benchmark
+	public long tiledVoronoi() {
+		final LongAdder cells = new LongAdder();
+		PGS_Voronoi.tiledVoronoi(packedPointsDouble, bounds, BenchmarkInputs.EXTENT / 4)
+				.forEachTile(diagram -> cells.add(diagram.sites.length));
+		return cells.sum();
+	}
+
+	/**
+	 * Power diagram of the same sites, randomly weighted, built by a reused
+	 * builder.
+	 */
+	@Benchmark
+	public FlatVoronoi.Diagram powerDiagram() {
+		return powerDiagram.build(packedPointsDouble, weights);
+	}
+
+	/**
+	 * Same work as {@link #innerVoronoiRelaxed()}, via the persistent relaxation
+	 * engine.
+	 */
+	@Benchmark
+	public PShape relaxationEngine() {
+		final LloydRelaxation relaxation = PGS_Voronoi.relaxation(points, bounds);
+		for (int i = 0; i < 5; i++) {
+			relaxation.step();
+		}
+		return relaxation.getCells();
+	}
+
+}
@@ -0,0 +1,77 @@
+package micycle.pgs.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import micycle.pgs.PGS_Voronoi;
+import processing.core.PConstants;
+import processing.core.PShape;
+import processing.core.PVector;
+
+/**
+ * Benchmarks {@link PGS_Voronoi} diagrams constrained (clipped) to a polygon
+ * and to a rectangle.
+ *
+ * @author Michael Carleton
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VoronoiConstrainBenchmark {
+
+	@Param({ "10000", "100000", "1000000" })
+	public int sites;
+
+	@Param({ "1337" })
+	public long seed;
+
+	List<PVector> points;
+	double[] bounds;
+	PShape polygon;
+	PShape rectangle;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		points = BenchmarkInputs.points(sites, seed);
+		bounds = new double[] { 0, 0, BenchmarkInputs.EXTENT, BenchmarkInputs.EXTENT };
+		polygon = BenchmarkInputs.polygon(1000, seed);
+
+		final double inset = BenchmarkInputs.EXTENT / 10;
+		final float min = (float) inset;
+		final float max = (float) (BenchmarkInputs.EXTENT - inset);
+		rectangle = new PShape(PShape.PATH);
+		rectangle.beginShape();
+		rectangle.vertex(min, min);
+		rectangle.vertex(max, min);
+		rectangle.vertex(max, max);
+		rectangle.vertex(min, max);
+		rectangle.endShape(PConstants.CLOSE);
+	}
+
+	@Benchmark
+	public PShape constrainToPolygon() {
+		return PGS_Voronoi.innerVoronoi(polygon, true, bounds, points, 0);
+	}
+
+	@Benchmark
+	public PShape constrainToRectangle() {
+		return PGS_Voronoi.innerVoronoi(rectangle, true, bounds, points, 0);
+	}
+
+}
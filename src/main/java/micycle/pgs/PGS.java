@@ -3,6 +3,9 @@ package micycle.pgs;
 import static processing.core.PConstants.LINES;
 import static processing.core.PConstants.ROUND;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -22,6 +25,7 @@ import org.locationtech.jts.geom.LinearRing;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.Polygon;
 import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
 import org.locationtech.jts.noding.BasicSegmentString;
 import org.locationtech.jts.noding.Noder;
 import org.locationtech.jts.noding.SegmentString;
@@ -34,6 +38,7 @@ import micycle.pgs.commons.FastPolygonizer;
 import micycle.pgs.commons.Nullable;
 import micycle.pgs.commons.PEdge;
 import processing.core.PConstants;
+import processing.core.PMatrix;
 import processing.core.PShape;
 import processing.core.PVector;
 
@@ -52,6 +57,26 @@ final class PGS {
 	 */
 	public static final GeometryFactory GEOM_FACTORY = new GeometryFactory(new PrecisionModel(PrecisionModel.FLOATING_SINGLE));
 
+	/**
+	 * A variant of {@link #GEOM_FACTORY} that creates geometries backed by packed
+	 * (primitive <code>double[]</code>) coordinate sequences.
+	 * 
+	 * @see PGS_Conversion#PACKED_COORDINATES
+	 */
+	public static final GeometryFactory PACKED_GEOM_FACTORY = new GeometryFactory(new PrecisionModel(PrecisionModel.FLOATING_SINGLE), 0,
+			PackedCoordinateSequenceFactory.DOUBLE_FACTORY);
+
+	/*
+	 * Getters for style (and other) PShape fields that have no public accessor.
+	 * These are resolved once here, rather than reflectively on every call.
+	 */
+	private static final MethodHandle FILL_COLOR_GETTER = pshapeFieldGetter("fillColor");
+	private static final MethodHandle FILL_GETTER = pshapeFieldGetter("fill");
+	private static final MethodHandle STROKE_COLOR_GETTER = pshapeFieldGetter("strokeColor");
+	private static final MethodHandle STROKE_GETTER = pshapeFieldGetter("stroke");
+	private static final MethodHandle STROKE_WEIGHT_GETTER = pshapeFieldGetter("strokeWeight");
+	private static final MethodHandle MATRIX_GETTER = pshapeFieldGetter("matrix");
+
 	private PGS() {
 	}
 
@@ -152,44 +177,87 @@ final class PGS {
 	}
 
 	/**
-	 * Reflection-based workaround to get the fill color of a PShape (this field is
-	 * usually inaccessible).
+	 * Returns the fill color of a PShape (this field is usually inaccessible).
 	 */
 	static final int getPShapeFillColor(final PShape sh) {
 		try {
-			final java.lang.reflect.Field f = PShape.class.getDeclaredField("fillColor");
-			f.setAccessible(true);
-			return f.getInt(sh);
-		} catch (ReflectiveOperationException cause) {
+			return (int) FILL_COLOR_GETTER.invokeExact(sh);
+		} catch (Throwable cause) {
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * Returns whether a PShape is filled (this field is usually inaccessible).
+	 */
+	static final boolean getPShapeFill(final PShape sh) {
+		try {
+			return (boolean) FILL_GETTER.invokeExact(sh);
+		} catch (Throwable cause) {
 			throw new RuntimeException(cause);
 		}
 	}
 
 	/**
-	 * Reflection-based workaround to get the stroke color of a PShape (this field
-	 * is usually inaccessible).
+	 * Returns the stroke color of a PShape (this field is usually inaccessible).
 	 */
 	static final int getPShapeStrokeColor(final PShape sh) {
 		try {
-			final java.lang.reflect.Field f = PShape.class.getDeclaredField("strokeColor");
-			f.setAccessible(true);
-			return f.getInt(sh);
-		} catch (ReflectiveOperationException cause) {
+			return (int) STROKE_COLOR_GETTER.invokeExact(sh);
+		} catch (Throwable cause) {
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * Returns whether a PShape is stroked (this field is usually inaccessible).
+	 */
+	static final boolean getPShapeStroke(final PShape sh) {
+		try {
+			return (boolean) STROKE_GETTER.invokeExact(sh);
+		} catch (Throwable cause) {
 			throw new RuntimeException(cause);
 		}
 	}
 
 	/**
-	 * Reflection-based workaround to get the stroke strokeWeight of a PShape (this
-	 * field is usually inaccessible).
+	 * Returns the stroke strokeWeight of a PShape (this field is usually
+	 * inaccessible).
 	 */
 	static final float getPShapeStrokeWeight(final PShape sh) {
 		try {
-			final java.lang.reflect.Field f = PShape.class.getDeclaredField("strokeWeight");
+			return (float) STROKE_WEIGHT_GETTER.invokeExact(sh);
+		} catch (Throwable cause) {
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * Returns the affine matrix of a PShape (this field is usually inaccessible).
+	 * 
+	 * @return the matrix; null if no affine transformations have been applied to
+	 *         the shape
+	 */
+	static final PMatrix getPShapeMatrix(final PShape sh) {
+		try {
+			return (PMatrix) MATRIX_GETTER.invokeExact(sh);
+		} catch (Throwable cause) {
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * Creates a getter for a (usually inaccessible) PShape field. The reflective
+	 * lookup happens once only; invoking a static final MethodHandle is about as
+	 * fast as a direct field access once JIT-compiled.
+	 */
+	private static MethodHandle pshapeFieldGetter(final String fieldName) {
+		try {
+			final Field f = PShape.class.getDeclaredField(fieldName);
 			f.setAccessible(true);
-			return f.getFloat(sh);
+			return MethodHandles.lookup().unreflectGetter(f);
 		} catch (ReflectiveOperationException cause) {
-			throw new RuntimeException(cause);
+			throw new ExceptionInInitializerError(cause);
 		}
 	}
 
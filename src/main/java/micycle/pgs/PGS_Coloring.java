@@ -14,6 +14,7 @@ import org.jgrapht.graph.DefaultEdge;
 import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
 import micycle.pgs.color.Colors;
 import micycle.pgs.color.ColorUtils;
+import micycle.pgs.commons.FlatMesh;
 import micycle.pgs.commons.GeneticColoring;
 import micycle.pgs.commons.RLFColoring;
 import processing.core.PShape;
@@ -169,6 +170,50 @@ public final class PGS_Coloring {
 		return colorMesh(shape, coloringAlgorithm, ColorUtils.hexToColor(colorPalette));
 	}
 
+	/**
+	 * Computes a coloring of the given flat mesh, returning a color class for each
+	 * mesh face.
+	 * 
+	 * @param mesh              a flat mesh, whose faces constitute a
+	 *                          <b>conforming</b> mesh
+	 * @param coloringAlgorithm coloring algorithm used to color the mesh
+	 * @return the color class (integer) of each face, indexed by face
+	 * @since 1.5.0
+	 */
+	public static int[] colorMesh(FlatMesh mesh, ColoringAlgorithm coloringAlgorithm) {
+		final Coloring<Integer> coloring = findColoring(PGS_Conversion.toDualGraph(mesh), coloringAlgorithm);
+		final int[] classes = new int[mesh.getFaceCount()];
+		coloring.getColors().forEach((face, color) -> classes[face] = color);
+		return classes;
+	}
+
+	/**
+	 * Computes a coloring of the given flat mesh and colors its faces using the
+	 * colors provided.
+	 * 
+	 * @param mesh              a flat mesh, whose faces constitute a
+	 *                          <b>conforming</b> mesh
+	 * @param coloringAlgorithm coloring algorithm used to color the mesh
+	 * @param colorPalette      the (integer) colors with which to color the mesh
+	 * @return a copy of the input mesh (sharing its coordinates and topology)
+	 *         whose faces have been colored
+	 * @since 1.5.0
+	 */
+	public static FlatMesh colorMesh(FlatMesh mesh, ColoringAlgorithm coloringAlgorithm, int[] colorPalette) {
+		final int[] classes = colorMesh(mesh, coloringAlgorithm);
+		final int[] colors = new int[classes.length];
+		int numberColors = 0;
+		for (int f = 0; f < classes.length; f++) {
+			numberColors = Math.max(numberColors, classes[f] + 1);
+			colors[f] = colorPalette[classes[f] % colorPalette.length]; // NOTE use modulo to avoid OOB exception
+		}
+		if (numberColors > colorPalette.length) {
+			System.err.format("WARNING: Number of mesh colors (%s) exceeds those provided in palette (%s)%s", numberColors,
+					colorPalette.length, System.lineSeparator());
+		}
+		return mesh.withColors(colors);
+	}
+
 	/**
 	 * Computes a coloring of the given non-conforming mesh shape, returning a color
 	 * class for each face of the pre-processed (noded) mesh.
@@ -230,8 +275,15 @@ public final class PGS_Coloring {
 	 * of faces) using the coloring algorithm specified.
 	 */
 	private static Coloring<PShape> findColoring(Collection<PShape> shapes, ColoringAlgorithm coloringAlgorithm) {
-		final AbstractBaseGraph<PShape, DefaultEdge> graph = PGS_Conversion.toDualGraph(shapes);
-		Coloring<PShape> coloring;
+		return findColoring(PGS_Conversion.toDualGraph(shapes), coloringAlgorithm);
+	}
+
+	/**
+	 * Finds a coloring for the (dual) graph of a mesh using the coloring algorithm
+	 * specified.
+	 */
+	private static <V> Coloring<V> findColoring(AbstractBaseGraph<V, DefaultEdge> graph, ColoringAlgorithm coloringAlgorithm) {
+		Coloring<V> coloring;
 
 		switch (coloringAlgorithm) {
 			case RANDOM : // randomly ordered sequential
@@ -1,7 +1,6 @@
 package micycle.pgs;
 
 import static micycle.pgs.PGS.GEOM_FACTORY;
-import static micycle.pgs.PGS.coordFromPVector;
 import static micycle.pgs.color.ColorUtils.decomposeclrRGB;
 import static processing.core.PConstants.BEZIER_VERTEX;
 import static processing.core.PConstants.CURVE_VERTEX;
@@ -11,13 +10,32 @@ import static processing.core.PConstants.QUADRATIC_VERTEX;
 import java.awt.Shape;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.PathIterator;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
-import java.lang.reflect.Field;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -29,7 +47,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.apache.commons.io.FileUtils;
 import org.jgrapht.alg.drawing.IndexedFRLayoutAlgorithm2D;
@@ -47,12 +71,19 @@ import org.locationtech.jts.awt.ShapeReader;
 import org.locationtech.jts.awt.ShapeWriter;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.CoordinateList;
+import org.locationtech.jts.geom.CoordinateSequence;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.geom.LinearRing;
 import org.locationtech.jts.geom.Polygon;
 import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
 import org.locationtech.jts.geom.util.AffineTransformation;
+import org.locationtech.jts.io.InStream;
+import org.locationtech.jts.io.InputStreamInStream;
+import org.locationtech.jts.io.OutStream;
+import org.locationtech.jts.io.OutputStreamOutStream;
 import org.locationtech.jts.io.ParseException;
 import org.locationtech.jts.io.WKBReader;
 import org.locationtech.jts.io.WKBWriter;
@@ -66,9 +97,13 @@ import org.scoutant.polyline.PolylineDecoder;
 import it.rambow.master.javautils.PolylineEncoder;
 import it.rambow.master.javautils.Track;
 import it.rambow.master.javautils.Trackpoint;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
 import micycle.betterbeziers.CubicBezier;
 import micycle.pgs.color.Colors;
+import micycle.pgs.commons.BezierFlattener;
+import micycle.pgs.commons.FlatMesh;
+import micycle.pgs.commons.GeoJsonFeatureIterator;
 import micycle.pgs.commons.Nullable;
 import micycle.pgs.commons.PEdge;
 import processing.core.PConstants;
@@ -99,7 +134,20 @@ public final class PGS_Conversion {
 
 	/** Approximate distance between successive sample points on bezier curves */
 	static final float BEZIER_SAMPLE_DISTANCE = 2;
-	private static Field MATRIX_FIELD, PSHAPE_FILL_FIELD;
+	/**
+	 * The maximum distance by which the straight line segments produced when
+	 * linearising curves (quadratic and cubic beziers, and ellipse and arc
+	 * primitives) may deviate from the true curve. When positive, curves are
+	 * flattened adaptively: the number of segments depends on the curvature of a
+	 * curve rather than its length, so large, gently curving shapes (such as
+	 * scaled-up text outlines or SVG maps) produce far fewer vertices.
+	 * <p>
+	 * When 0, curves are instead sampled at a fixed distance of ~2 units along
+	 * their length (the legacy behaviour). Default = <code>0</code>.
+	 * 
+	 * @since 1.5.0
+	 */
+	public static double CURVE_MAX_DEVIATION = 0;
 	/**
 	 * A boolean flag that affects whether a PShape's style (fillColor, strokeColor,
 	 * strokeWidth) is preserved during <code>PShape->Geometry->PShape</code>
@@ -125,17 +173,82 @@ public final class PGS_Conversion {
 	 * <a href="https://github.com/micycle1/PGS/issues/67">GitHub</a>.
 	 */
 	public static boolean HANDLE_MULTICONTOUR = false;
+	/**
+	 * A boolean flag that, when true, enables a cache of
+	 * {@link #fromPShape(PShape) fromPShape()} conversions, keyed on PShape
+	 * identity. Converting the same (unchanged) PShape again returns the geometry
+	 * that was previously built for it, rather than rebuilding its contours,
+	 * resampling its bezier curves and re-applying its affine matrix.
+	 * <p>
+	 * This is useful when the same static shapes (such as a loaded SVG, or a mask)
+	 * are passed to PGS methods repeatedly, every frame. Cached entries are held
+	 * weakly, so they do not prevent their PShapes from being garbage collected.
+	 * <p>
+	 * A stamp (comprising the vertex count, a hash of the vertex coordinates and
+	 * codes, the affine matrix, primitive parameters and the conversion flags that
+	 * affect the output geometry) is compared on every lookup, and a matching
+	 * stamp is confirmed against an exact copy of the shape's vertex data. So
+	 * mutating a shape's vertices via PShape methods (or changing
+	 * {@link #PACKED_COORDINATES}, {@link #CURVE_MAX_DEVIATION} or
+	 * {@link #HANDLE_MULTICONTOUR}) invalidates its entry automatically. Shapes
+	 * mutated in other ways can be invalidated explicitly with
+	 * {@link #invalidateConversionCache(PShape)}.
+	 * <p>
+	 * Each call returns a copy of the cached geometry (carrying the shape's
+	 * current style, if {@link #PRESERVE_STYLE} is enabled), so returned
+	 * geometries may be mutated freely. A cache hit therefore still costs time
+	 * linear in the shape's vertex count (two passes over its vertices, plus a
+	 * deep copy of the geometry); it saves the contour building, bezier
+	 * resampling and matrix application of a full conversion, so pays off for
+	 * curved or transformed shapes rather than simple polygons. Cached entries
+	 * keep a copy of each shape's vertex data. Only non-GROUP shapes are cached
+	 * (GROUP shapes are cached via their children). Default = <code>false</code>.
+	 * 
+	 * @since 1.5.0
+	 */
+	public static boolean CACHE_CONVERSIONS = false;
+	/**
+	 * A boolean flag that, when true, makes {@link #fromPShape(PShape)
+	 * fromPShape()} build the geometries of (bezier-free) polygon and path shapes
+	 * using {@link PGS#PACKED_GEOM_FACTORY}, whose geometries store their
+	 * coordinates in a single primitive <code>double[]</code> per ring
+	 * ({@link PackedCoordinateSequence}) rather than one {@link Coordinate} object
+	 * per vertex.
+	 * <p>
+	 * With this enabled, vertex coordinates are read straight from the PShape into
+	 * the packed array, so large shapes convert with O(1) allocations per ring.
+	 * Packed geometries are fully supported by JTS, though some operations that
+	 * access coordinates one object at a time may run slightly slower on them.
+	 * Default = <code>false</code>.
+	 * 
+	 * @since 1.5.0
+	 */
+	public static boolean PACKED_COORDINATES = false;
+	/**
+	 * The number of child shapes/geometries at or above which the children of
+	 * GROUP shapes (and multi-geometries) are converted concurrently, during both
+	 * {@link #fromPShape(PShape) fromPShape()} and {@link #toPShape(Collection)
+	 * toPShape()}, using {@link #CONVERSION_POOL}. Children are always assembled in
+	 * their original order, so the output does not depend on this setting.
+	 * <p>
+	 * Set to <code>Integer.MAX_VALUE</code> to always convert sequentially. Default
+	 * = <code>10000</code>.
+	 * 
+	 * @since 1.5.0
+	 */
+	public static int PARALLEL_CONVERSION_THRESHOLD = 10000;
+	/**
+	 * The pool used for parallel conversion of large GROUP shapes. Default = the
+	 * common fork-join pool.
+	 * 
+	 * @since 1.5.0
+	 * @see #PARALLEL_CONVERSION_THRESHOLD
+	 */
+	public static ForkJoinPool CONVERSION_POOL = ForkJoinPool.commonPool();
 
-	static {
-		try {
-			MATRIX_FIELD = PShape.class.getDeclaredField("matrix");
-			MATRIX_FIELD.setAccessible(true);
-			PSHAPE_FILL_FIELD = PShape.class.getDeclaredField("fillColor");
-			PSHAPE_FILL_FIELD.setAccessible(true);
-		} catch (NoSuchFieldException e) {
-			System.err.println(e.getLocalizedMessage());
-		}
-	}
+	private static final int BINARY_MESH_MAGIC = 0x4D534750; // "PGSM" (little-endian)
+	private static final int BINARY_MESH_VERSION = 1;
+	private static final int BINARY_MESH_HEADER_BYTES = 6 * 4;
 
 	private PGS_Conversion() {
 	}
@@ -202,9 +315,11 @@ public final class PGS_Conversion {
 					shape = toPShape(g.getGeometryN(0));
 				} else {
 					shape.setFamily(GROUP);
+					final List<Geometry> children = new ArrayList<>(g.getNumGeometries());
 					for (int i = 0; i < g.getNumGeometries(); i++) {
-						shape.addChild(toPShape(g.getGeometryN(i)));
+						children.add(g.getGeometryN(i));
 					}
+					map(children, PGS_Conversion::toPShape).forEach(shape::addChild);
 				}
 				break;
 			// TODO treat closed linestrings as unfilled & unclosed paths?
@@ -214,10 +329,7 @@ public final class PGS_Conversion {
 				final boolean closed = l.isClosed();
 				shape.setFamily(PShape.PATH);
 				shape.beginShape();
-				Coordinate[] coords = l.getCoordinates();
-				for (int i = 0; i < coords.length - (closed ? 1 : 0); i++) {
-					shape.vertex((float) coords[i].x, (float) coords[i].y);
-				}
+				vertices(shape, l.getCoordinateSequence(), closed);
 				if (closed) { // closed vertex was skipped, so close the path
 					shape.endShape(PConstants.CLOSE);
 				} else {
@@ -233,29 +345,21 @@ public final class PGS_Conversion {
 				shape.beginShape();
 
 				/*
-				 * Outer and inner loops are iterated up to length-1 to skip the point that
-				 * closes the JTS shape (same as the first point).
+				 * Outer and inner loops skip the point that closes the JTS shape (same as the
+				 * first point).
 				 */
-				coords = polygon.getExteriorRing().getCoordinates();
-				for (int i = 0; i < coords.length - 1; i++) {
-					final Coordinate coord = coords[i];
-					shape.vertex((float) coord.x, (float) coord.y);
-				}
+				vertices(shape, polygon.getExteriorRing().getCoordinateSequence(), true);
 
 				for (int j = 0; j < polygon.getNumInteriorRing(); j++) { // holes
 					shape.beginContour();
-					coords = polygon.getInteriorRingN(j).getCoordinates();
-					for (int i = 0; i < coords.length - 1; i++) {
-						final Coordinate coord = coords[i];
-						shape.vertex((float) coord.x, (float) coord.y);
-					}
+					vertices(shape, polygon.getInteriorRingN(j).getCoordinateSequence(), true);
 					shape.endContour();
 				}
 				shape.endShape(PConstants.CLOSE);
 				break;
 			case Geometry.TYPENAME_POINT :
 			case Geometry.TYPENAME_MULTIPOINT :
-				coords = g.getCoordinates();
+				final Coordinate[] coords = g.getCoordinates();
 				shape.setFamily(PShape.GEOMETRY);
 				shape.setFill(false);
 				shape.setStrokeCap(PConstants.ROUND);
@@ -278,6 +382,38 @@ public final class PGS_Conversion {
 		return shape;
 	}
 
+	/**
+	 * Maps each item of a collection (in parallel, if the collection is at least
+	 * {@link #PARALLEL_CONVERSION_THRESHOLD} in size), returning the results in
+	 * encounter order.
+	 */
+	private static <T, R> List<R> map(Collection<? extends T> items, Function<? super T, ? extends R> mapper) {
+		if (items.size() >= PARALLEL_CONVERSION_THRESHOLD) {
+			// a parallel stream executes in the pool from which it is invoked
+			return CONVERSION_POOL.submit(() -> items.parallelStream().map(mapper).collect(Collectors.<R>toList())).join();
+		}
+		final List<R> out = new ArrayList<>(items.size());
+		for (T item : items) {
+			out.add(mapper.apply(item));
+		}
+		return out;
+	}
+
+	/**
+	 * Adds the coordinates of a sequence as vertices of a PShape (that is between
+	 * beginShape() and endShape() calls). Reading from the sequence directly (rather
+	 * than via getCoordinates()) avoids materialising Coordinate objects for
+	 * packed sequences.
+	 * 
+	 * @param skipLast whether to skip the last coordinate (that closes a ring)
+	 */
+	private static void vertices(PShape shape, CoordinateSequence sequence, boolean skipLast) {
+		final int n = sequence.size() - (skipLast ? 1 : 0);
+		for (int i = 0; i < n; i++) {
+			shape.vertex((float) sequence.getX(i), (float) sequence.getY(i));
+		}
+	}
+
 	/**
 	 * 
 	 * Converts a collection of JTS Geometries into a corresponding GROUP PShape.
@@ -303,7 +439,7 @@ public final class PGS_Conversion {
 		shape.setStroke(micycle.pgs.color.Colors.PINK);
 		shape.setStrokeWeight(4);
 
-		geometries.forEach(g -> shape.addChild(toPShape(g)));
+		map(geometries, PGS_Conversion::toPShape).forEach(shape::addChild);
 		if (shape.getChildCount() == 1) {
 			return shape.getChild(0);
 		}
@@ -352,12 +488,67 @@ public final class PGS_Conversion {
 	 *         unsupported.
 	 */
 	public static Geometry fromPShape(PShape shape) {
+		if (CACHE_CONVERSIONS && shape.getFamily() != GROUP) {
+			return ConversionCache.get(shape);
+		}
+		return convertPShape(shape);
+	}
+
+	/**
+	 * Returns the number of {@link #fromPShape(PShape) fromPShape()} calls served
+	 * from the conversion cache since it was last cleared.
+	 * 
+	 * @return number of cache hits
+	 * @since 1.5.0
+	 * @see #CACHE_CONVERSIONS
+	 */
+	public static long getConversionCacheHits() {
+		return ConversionCache.HITS.get();
+	}
+
+	/**
+	 * Returns the number of {@link #fromPShape(PShape) fromPShape()} calls that
+	 * missed the conversion cache (and so built a new geometry) since it was last
+	 * cleared.
+	 * 
+	 * @return number of cache misses
+	 * @since 1.5.0
+	 * @see #CACHE_CONVERSIONS
+	 */
+	public static long getConversionCacheMisses() {
+		return ConversionCache.MISSES.get();
+	}
+
+	/**
+	 * Removes the cached conversion (if any) of the given shape (and of its
+	 * children, if it is a GROUP shape) from the conversion cache.
+	 * 
+	 * @param shape shape whose conversion to invalidate
+	 * @since 1.5.0
+	 * @see #CACHE_CONVERSIONS
+	 */
+	public static void invalidateConversionCache(PShape shape) {
+		getChildren(shape).forEach(ConversionCache::remove);
+	}
+
+	/**
+	 * Removes all entries from the conversion cache and resets its hit and miss
+	 * counters.
+	 * 
+	 * @since 1.5.0
+	 * @see #CACHE_CONVERSIONS
+	 */
+	public static void clearConversionCache() {
+		ConversionCache.clear();
+	}
+
+	private static Geometry convertPShape(PShape shape) {
 		Geometry g = GEOM_FACTORY.createEmpty(2);
 
 		switch (shape.getFamily()) {
 			case PConstants.GROUP :
 				final List<PShape> flatChildren = getChildren(shape);
-				List<Geometry> geoChildren = flatChildren.stream().map(PGS_Conversion::fromPShape).collect(Collectors.toList());
+				List<Geometry> geoChildren = map(flatChildren, PGS_Conversion::fromPShape);
 				g = GEOM_FACTORY.buildGeometry(geoChildren);
 				break;
 			case PShape.GEOMETRY :
@@ -381,16 +572,13 @@ public final class PGS_Conversion {
 		 * Finally, apply PShape's affine transformations (which are not applied to its
 		 * vertices directly).
 		 */
-		try {
-			final PMatrix matrix = (PMatrix) MATRIX_FIELD.get(shape);
-			if (matrix != null) { // is null if no affine transformations have been applied to shape
-				final float[] affine = matrix.get(null);
-				if (affine.length == 6) { // process 2D shape matrix only
-					AffineTransformation t = new AffineTransformation(affine[0], affine[1], affine[2], affine[3], affine[4], affine[5]);
-					return t.transform(g);
-				}
+		final PMatrix matrix = PGS.getPShapeMatrix(shape);
+		if (matrix != null) { // is null if no affine transformations have been applied to shape
+			final float[] affine = matrix.get(null);
+			if (affine.length == 6) { // process 2D shape matrix only
+				AffineTransformation t = new AffineTransformation(affine[0], affine[1], affine[2], affine[3], affine[4], affine[5]);
+				return t.transform(g);
 			}
-		} catch (Exception e) {
 		}
 
 		return g;
@@ -408,41 +596,41 @@ public final class PGS_Conversion {
 			case PConstants.POINTS :
 				final Coordinate[] coords = new Coordinate[shape.getVertexCount()];
 				for (int i = 0; i < shape.getVertexCount(); i++) {
-					coords[i] = PGS.coordFromPVector(shape.getVertex(i));
+					coords[i] = vertexCoord(shape, i);
 				}
 				return GEOM_FACTORY.createMultiPointFromCoords(coords);
 			case PConstants.LINES : // create multi line string consisting of each line
 				final LineString[] lines = new LineString[shape.getVertexCount() / 2];
 				for (int i = 0; i < lines.length; i++) {
-					final Coordinate c1 = PGS.coordFromPVector(shape.getVertex(2 * i));
-					final Coordinate c2 = PGS.coordFromPVector(shape.getVertex(2 * i + 1));
+					final Coordinate c1 = vertexCoord(shape, 2 * i);
+					final Coordinate c2 = vertexCoord(shape, 2 * i + 1);
 					lines[i] = GEOM_FACTORY.createLineString(new Coordinate[] { c1, c2 });
 				}
 				return GEOM_FACTORY.createMultiLineString(lines);
 			case PConstants.TRIANGLE :
 				final Coordinate[] triangle = new Coordinate[3 + 1];
-				final Coordinate a = PGS.coordFromPVector(shape.getVertex(0));
+				final Coordinate a = vertexCoord(shape, 0);
 				triangle[0] = a;
-				triangle[1] = PGS.coordFromPVector(shape.getVertex(1));
-				triangle[2] = PGS.coordFromPVector(shape.getVertex(2));
+				triangle[1] = vertexCoord(shape, 1);
+				triangle[2] = vertexCoord(shape, 2);
 				triangle[3] = a.copy();
 				return GEOM_FACTORY.createPolygon(triangle);
 			case PConstants.TRIANGLES :
 				final Polygon[] triangles = new Polygon[shape.getVertexCount() / 3];
 				for (int i = 0; i < triangles.length; i++) {
-					final Coordinate c1 = PGS.coordFromPVector(shape.getVertex(3 * i));
-					final Coordinate c2 = PGS.coordFromPVector(shape.getVertex(3 * i + 1));
-					final Coordinate c3 = PGS.coordFromPVector(shape.getVertex(3 * i + 2));
+					final Coordinate c1 = vertexCoord(shape, 3 * i);
+					final Coordinate c2 = vertexCoord(shape, 3 * i + 1);
+					final Coordinate c3 = vertexCoord(shape, 3 * i + 2);
 					triangles[i] = GEOM_FACTORY.createPolygon(new Coordinate[] { c1, c2, c3, c1 });
 				}
 				return GEOM_FACTORY.createMultiPolygon(triangles);
 			case PConstants.QUADS :
 				final Polygon[] quads = new Polygon[shape.getVertexCount() / 4];
 				for (int i = 0; i < quads.length; i++) {
-					final Coordinate c1 = PGS.coordFromPVector(shape.getVertex(4 * i));
-					final Coordinate c2 = PGS.coordFromPVector(shape.getVertex(4 * i + 1));
-					final Coordinate c3 = PGS.coordFromPVector(shape.getVertex(4 * i + 2));
-					final Coordinate c4 = PGS.coordFromPVector(shape.getVertex(4 * i + 3));
+					final Coordinate c1 = vertexCoord(shape, 4 * i);
+					final Coordinate c2 = vertexCoord(shape, 4 * i + 1);
+					final Coordinate c3 = vertexCoord(shape, 4 * i + 2);
+					final Coordinate c4 = vertexCoord(shape, 4 * i + 3);
 					quads[i] = GEOM_FACTORY.createPolygon(new Coordinate[] { c1, c2, c3, c4, c1 });
 				}
 				return GEOM_FACTORY.createMultiPolygon(quads);
@@ -475,6 +663,10 @@ public final class PGS_Conversion {
 			Arrays.fill(rawVertexCodes, PConstants.VERTEX);
 		}
 
+		if (PACKED_COORDINATES && !HANDLE_MULTICONTOUR && isVertexOnly(rawVertexCodes)) {
+			return fromVerticesPacked(shape, rawVertexCodes);
+		}
+
 		final int[] contourGroups = getContourGroups(rawVertexCodes);
 		final int[] vertexCodes = getVertexTypes(rawVertexCodes);
 
@@ -505,7 +697,7 @@ public final class PGS_Conversion {
 					i += 2;
 					continue;
 				default : // VERTEX
-					contours.get(lastGroup).add(coordFromPVector(shape.getVertex(i)), false);
+					contours.get(lastGroup).add(vertexCoord(shape, i), false);
 					break;
 			}
 		}
@@ -541,6 +733,101 @@ public final class PGS_Conversion {
 		}
 	}
 
+	/**
+	 * Creates a JTS geometry having packed coordinate sequences from a polygon or
+	 * path PShape consisting only of plain vertices (no bezier vertices). Vertex
+	 * coordinates are copied straight into one primitive array per contour.
+	 * <p>
+	 * Like {@link #fromVertices(PShape)}, repeated (successive) vertices are not
+	 * preserved.
+	 */
+	private static Geometry fromVerticesPacked(PShape shape, int[] rawVertexCodes) {
+		final GeometryFactory factory = PGS.PACKED_GEOM_FACTORY;
+		final boolean closed = shape.isClosed();
+		final int vertexCount = shape.getVertexCount();
+		final List<CoordinateSequence> contours = new ArrayList<>(1);
+
+		/*
+		 * BREAK codes delimit contours; the vertex at which each contour starts is
+		 * recorded (a leading BREAK, as in SVG-loaded shapes, doesn't start a new
+		 * contour).
+		 */
+		final int[] contourStarts = new int[rawVertexCodes.length + 1];
+		int nContours = 1;
+		int v = 0;
+		for (int i = 0; i < rawVertexCodes.length; i++) {
+			if (rawVertexCodes[i] == PConstants.BREAK) {
+				if (i > 0 && v > contourStarts[nContours - 1]) {
+					contourStarts[nContours++] = v;
+				}
+			} else {
+				v++;
+			}
+		}
+		contourStarts[nContours] = vertexCount;
+
+		for (int c = 0; c < nContours; c++) {
+			final int from = contourStarts[c];
+			final int to = contourStarts[c + 1];
+			final double[] xy = new double[2 * (to - from + 1)];
+			int n = 0;
+			for (int i = from; i < to; i++) {
+				final double x = shape.getVertexX(i);
+				final double y = shape.getVertexY(i);
+				if (n > 0 && xy[2 * n - 2] == x && xy[2 * n - 1] == y) {
+					continue; // skip repeated vertex
+				}
+				xy[2 * n] = x;
+				xy[2 * n + 1] = y;
+				n++;
+			}
+			if (closed && n > 0 && (xy[0] != xy[2 * n - 2] || xy[1] != xy[2 * n - 1])) {
+				xy[2 * n] = xy[0]; // close ring
+				xy[2 * n + 1] = xy[1];
+				n++;
+			}
+			contours.add(new PackedCoordinateSequence.Double(n == xy.length / 2 ? xy : Arrays.copyOf(xy, 2 * n), 2, 0));
+		}
+
+		final CoordinateSequence outer = contours.get(0);
+		if (outer.size() == 0) {
+			return factory.createPolygon(); // empty polygon
+		} else if (outer.size() == 1) {
+			return factory.createPoint(outer);
+		} else if (outer.size() == 2) {
+			return factory.createLineString(outer);
+		} else if (closed) {
+			final LinearRing[] holes = new LinearRing[contours.size() - 1];
+			for (int j = 1; j < contours.size(); j++) {
+				holes[j - 1] = factory.createLinearRing(contours.get(j));
+			}
+			return factory.createPolygon(factory.createLinearRing(outer), holes);
+		} else {
+			return factory.createLineString(outer);
+		}
+	}
+
+	/**
+	 * @return true if the vertex codes contain plain vertices (and contour breaks)
+	 *         only
+	 */
+	private static boolean isVertexOnly(int[] rawVertexCodes) {
+		for (int code : rawVertexCodes) {
+			if (code != PConstants.VERTEX && code != PConstants.BREAK) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Creates a coordinate from a PShape vertex, without the intermediate PVector
+	 * allocated by {@link PShape#getVertex(int)}.
+	 */
+	private static Coordinate vertexCoord(PShape shape, int index) {
+		return new Coordinate(shape.getVertexX(index), shape.getVertexY(index));
+	}
+
 	/**
 	 * <p>
 	 * Transforms a {@code PShape} object, which might contain multiple contours
@@ -717,7 +1004,8 @@ public final class PGS_Conversion {
 				if ((int) Math.ceil(perimeter / BEZIER_SAMPLE_DISTANCE) < 4) {
 					return GEOM_FACTORY.createPolygon();
 				}
-				shapeFactory.setNumPoints((int) Math.ceil(perimeter / BEZIER_SAMPLE_DISTANCE));
+				shapeFactory.setNumPoints(CURVE_MAX_DEVIATION > 0 ? ellipseSegments(Math.max(a, b), 2 * Math.PI)
+						: (int) Math.ceil(perimeter / BEZIER_SAMPLE_DISTANCE));
 				shapeFactory.setCentre(new Coordinate(shape.getParam(0), shape.getParam(1)));
 				shapeFactory.setWidth(a * 2);
 				shapeFactory.setHeight(b * 2);
@@ -753,7 +1041,8 @@ public final class PGS_Conversion {
 				shapeFactory.setHeight(shape.getParam(3));
 				// circumference (if it was full circle)
 				final double circumference = Math.PI * Math.max(shape.getParam(2), shape.getParam(3));
-				shapeFactory.setNumPoints((int) Math.ceil(circumference / BEZIER_SAMPLE_DISTANCE));
+				shapeFactory.setNumPoints(CURVE_MAX_DEVIATION > 0 ? ellipseSegments(Math.max(shape.getParam(2), shape.getParam(3)) / 2d,
+						shape.getParam(5)) : (int) Math.ceil(circumference / BEZIER_SAMPLE_DISTANCE));
 				return shapeFactory.createArcPolygon(-Math.PI / 2 + shape.getParam(4), shape.getParam(5));
 			case PConstants.POINT :
 				return GEOM_FACTORY.createPoint(new Coordinate(shape.getParam(0), shape.getParam(1)));
@@ -771,6 +1060,20 @@ public final class PGS_Conversion {
 		return GEOM_FACTORY.createPolygon(); // empty polygon
 	}
 
+	/**
+	 * Finds the number of segments needed to linearise an (elliptical) arc within
+	 * {@link #CURVE_MAX_DEVIATION}, such that the sagitta of each segment (the
+	 * maximum distance between the segment and the arc) is at most the deviation.
+	 *
+	 * @param radius the largest radius of the ellipse
+	 * @param extent the angular extent of the arc (radians)
+	 */
+	private static int ellipseSegments(double radius, double extent) {
+		final double ratio = Math.max(-1, 1 - CURVE_MAX_DEVIATION / radius);
+		final double segmentAngle = 2 * Math.acos(ratio);
+		return Math.max(4, (int) Math.ceil(Math.abs(extent) / segmentAngle));
+	}
+
 	/**
 	 * Transforms a variable arg list of points into a POINTS PShape.
 	 * 
@@ -1045,6 +1348,46 @@ public final class PGS_Conversion {
 		return graph;
 	}
 
+	/**
+	 * Converts a flat mesh into its undirected, unweighted dual-graph, whose
+	 * vertices are face indices.
+	 * <p>
+	 * Since a flat mesh shares vertex indices between faces, adjacency is found
+	 * from vertex indices alone, without any coordinate hashing.
+	 *
+	 * @param mesh a flat mesh, whose faces constitute a conforming mesh
+	 * @return the dual graph of the input mesh, having a vertex for each face index
+	 *         and an edge for each pair of adjacent faces
+	 * @since 1.5.0
+	 * @see #toDualGraph(PShape)
+	 */
+	public static SimpleGraph<Integer, DefaultEdge> toDualGraph(FlatMesh mesh) {
+		final SimpleGraph<Integer, DefaultEdge> graph = new SimpleGraph<>(DefaultEdge.class);
+		// map of which face each edge has been seen in; used to detect half-edges
+		final Long2IntOpenHashMap edgesMap = new Long2IntOpenHashMap(mesh.vertexIndices.length);
+		edgesMap.defaultReturnValue(-1);
+
+		for (int f = 0; f < mesh.getFaceCount(); f++) {
+			graph.addVertex(f); // always add face so disconnected faces are included
+			final int n = mesh.getFaceSize(f);
+			for (int i = 0; i < n; i++) {
+				final int a = mesh.getFaceVertex(f, i);
+				final int b = mesh.getFaceVertex(f, (i + 1) % n);
+				if (a == b) {
+					continue;
+				}
+				final long e = FlatMesh.edgeKey(a, b);
+				final int neighbour = edgesMap.get(e);
+				if (neighbour == -1) {
+					edgesMap.put(e, f); // edge is new
+				} else if (neighbour != f) {
+					graph.addEdge(neighbour, f);
+				}
+			}
+		}
+		return graph;
+	}
+
 	/**
 	 * Writes the <i>Well-Known Text</i> representation of a shape. The
 	 * <i>Well-Known Text</i> format is defined in the OGC Simple Features
@@ -1154,6 +1497,91 @@ public final class PGS_Conversion {
 
 	}
 
+	/**
+	 * Reads a stream of concatenated <i>Well-Known Binary</i> geometries (such as
+	 * one written by {@link #toWKB(Iterable, OutputStream)}), converting each
+	 * geometry into a PShape and passing it to the given consumer as soon as it
+	 * has been read. Memory use is bounded by the largest single geometry in the
+	 * stream, rather than by the size of the stream.
+	 * 
+	 * @param wkb      stream of WKB geometries. It is not closed by this method.
+	 * @param consumer receives each shape, in stream order
+	 * @throws IOException if the stream could not be read or contains malformed
+	 *                     WKB
+	 * @since 1.5.0
+	 * @see #fromWKB(Path, Consumer)
+	 */
+	public static void fromWKB(InputStream wkb, Consumer<PShape> consumer) throws IOException {
+		final PushbackInputStream in = new PushbackInputStream(wkb instanceof BufferedInputStream ? wkb : new BufferedInputStream(wkb));
+		final InStream inStream = new InputStreamInStream(in);
+		final WKBReader reader = new WKBReader(GEOM_FACTORY);
+		int b;
+		while ((b = in.read()) != -1) { // peek for end of stream
+			in.unread(b);
+			try {
+				consumer.accept(toPShape(reader.read(inStream)));
+			} catch (ParseException e) {
+				throw new IOException("Malformed WKB geometry in stream.", e);
+			}
+		}
+	}
+
+	/**
+	 * Reads a file of concatenated <i>Well-Known Binary</i> geometries, passing
+	 * each geometry (as a PShape) to the given consumer as soon as it has been
+	 * read.
+	 * 
+	 * @param file     path of the WKB file
+	 * @param consumer receives each shape, in file order
+	 * @throws IOException if the file could not be read or contains malformed WKB
+	 * @since 1.5.0
+	 * @see #fromWKB(InputStream, Consumer)
+	 */
+	public static void fromWKB(Path file, Consumer<PShape> consumer) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			fromWKB(in, consumer);
+		}
+	}
+
+	/**
+	 * Writes shapes one after another, in <i>Well-Known Binary</i> format, to an
+	 * output stream. Each shape is converted and written before the next is
+	 * requested from the iterable, so shapes may be produced lazily.
+	 * 
+	 * @param shapes shapes to write (a GROUP shape's children may be passed via
+	 *               {@link #getChildren(PShape)})
+	 * @param out    destination stream. It is flushed but not closed by this
+	 *               method.
+	 * @throws IOException if writing to the stream failed
+	 * @since 1.5.0
+	 * @see #fromWKB(InputStream, Consumer)
+	 */
+	public static void toWKB(Iterable<PShape> shapes, OutputStream out) throws IOException {
+		final OutputStream buffered = new BufferedOutputStream(out);
+		final OutStream outStream = new OutputStreamOutStream(buffered);
+		final WKBWriter writer = new WKBWriter();
+		for (PShape shape : shapes) {
+			writer.write(fromPShape(shape), outStream);
+		}
+		buffered.flush();
+	}
+
+	/**
+	 * Writes shapes one after another, in <i>Well-Known Binary</i> format, to a
+	 * file (which is created or overwritten).
+	 * 
+	 * @param shapes shapes to write
+	 * @param file   path of the file to write
+	 * @throws IOException if writing to the file failed
+	 * @since 1.5.0
+	 * @see #fromWKB(Path, Consumer)
+	 */
+	public static void toWKB(Iterable<PShape> shapes, Path file) throws IOException {
+		try (OutputStream out = Files.newOutputStream(file)) {
+			toWKB(shapes, out);
+		}
+	}
+
 	/**
 	 * Writes a shape into the hexadecimal string representation of its
 	 * <i>Well-Known Binary</i> format.
@@ -1252,6 +1680,319 @@ public final class PGS_Conversion {
 		}
 	}
 
+	/**
+	 * Reads a GeoJSON document from a stream feature-by-feature, converting each
+	 * feature into a PShape and passing it to the given consumer as soon as it has
+	 * been read. Memory use is bounded by the largest single feature, rather than
+	 * by the size of the document.
+	 * <p>
+	 * Each element of a <code>FeatureCollection</code> is streamed individually;
+	 * any other GeoJSON document (a single <code>Feature</code> or geometry) is
+	 * passed to the consumer as one shape. Features without a geometry are
+	 * skipped.
+	 * 
+	 * @param json     stream of UTF-8 GeoJSON text. It is not closed by this
+	 *                 method.
+	 * @param consumer receives each feature's shape, in document order
+	 * @throws IOException if the stream could not be read or a feature is
+	 *                     malformed
+	 * @since 1.5.0
+	 * @see #fromGeoJSON(Path, Consumer)
+	 */
+	public static void fromGeoJSON(InputStream json, Consumer<PShape> consumer) throws IOException {
+		final GeoJsonReader reader = new GeoJsonReader(GEOM_FACTORY);
+		final GeoJsonFeatureIterator features = new GeoJsonFeatureIterator(new InputStreamReader(json, StandardCharsets.UTF_8));
+		try {
+			while (features.hasNext()) {
+				final String feature = features.next();
+				if (features.hasNullGeometry()) {
+					continue; // JTS can't parse features having a null geometry
+				}
+				final Geometry g;
+				try {
+					g = reader.read(feature);
+				} catch (ParseException e) {
+					throw new IOException("Malformed GeoJSON feature in stream.", e);
+				}
+				if (g != null) {
+					consumer.accept(toPShape(g));
+				}
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * Reads a GeoJSON file feature-by-feature, passing each feature (as a PShape)
+	 * to the given consumer as soon as it has been read.
+	 * 
+	 * @param file     path of the GeoJSON file (UTF-8)
+	 * @param consumer receives each feature's shape, in document order
+	 * @throws IOException if the file could not be read or a feature is malformed
+	 * @since 1.5.0
+	 * @see #fromGeoJSON(InputStream, Consumer)
+	 */
+	public static void fromGeoJSON(Path file, Consumer<PShape> consumer) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			fromGeoJSON(in, consumer);
+		}
+	}
+
+	/**
+	 * Writes shapes to an output stream as the features of a GeoJSON
+	 * <code>FeatureCollection</code>. Each shape is converted and written before
+	 * the next is requested from the iterable, so shapes may be produced lazily.
+	 * 
+	 * @param shapes shapes to write (a GROUP shape's children may be passed via
+	 *               {@link #getChildren(PShape)})
+	 * @param out    destination stream, to which UTF-8 text is written. It is
+	 *               flushed but not closed by this method.
+	 * @throws IOException if writing to the stream failed
+	 * @since 1.5.0
+	 * @see #fromGeoJSON(InputStream, Consumer)
+	 */
+	public static void toGeoJSON(Iterable<PShape> shapes, OutputStream out) throws IOException {
+		final GeoJsonWriter writer = new GeoJsonWriter(1);
+		writer.setForceCCW(true);
+		writer.setEncodeCRS(false);
+		final Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+		w.write("{\"type\":\"FeatureCollection\",\"features\":[");
+		boolean first = true;
+		for (PShape shape : shapes) {
+			if (!first) {
+				w.write(',');
+			}
+			first = false;
+			w.write("{\"type\":\"Feature\",\"properties\":{},\"geometry\":");
+			writer.write(fromPShape(shape), w);
+			w.write('}');
+		}
+		w.write("]}");
+		w.flush();
+	}
+
+	/**
+	 * Writes shapes to a file (which is created or overwritten) as the features of
+	 * a GeoJSON <code>FeatureCollection</code>.
+	 * 
+	 * @param shapes shapes to write
+	 * @param file   path of the file to write
+	 * @throws IOException if writing to the file failed
+	 * @since 1.5.0
+	 * @see #fromGeoJSON(Path, Consumer)
+	 */
+	public static void toGeoJSON(Iterable<PShape> shapes, Path file) throws IOException {
+		try (OutputStream out = Files.newOutputStream(file)) {
+			toGeoJSON(shapes, out);
+		}
+	}
+
+	/**
+	 * Writes a polygonal mesh (a GROUP shape whose children are the faces of the
+	 * mesh) into a compact PGS-native binary file, which can be loaded very quickly
+	 * with {@link #fromBinaryMesh(Path)}. This is intended for large meshes that
+	 * are computed offline and reloaded often.
+	 * <p>
+	 * The file stores (little-endian):
+	 * <ul>
+	 * <li>a header: the magic bytes <code>PGSM</code>, then the format version,
+	 * flags, face count, ring count and coordinate count (all <code>int</code>);</li>
+	 * <li>face offsets (<code>int[faces + 1]</code>), indexing each face's first
+	 * ring; the first ring of a face is its exterior and any others are holes;</li>
+	 * <li>ring offsets (<code>int[rings + 1]</code>), indexing each ring's first
+	 * coordinate; rings are unclosed (the closing vertex is not repeated);</li>
+	 * <li>coordinates (<code>float[coords * 2]</code>), as interleaved x,y
+	 * pairs;</li>
+	 * <li>optionally, fill colors (<code>int[faces]</code>).</li>
+	 * </ul>
+	 * Faces that are multipolygons are written as one face per polygon;
+	 * non-polygonal children are skipped.
+	 * 
+	 * @param mesh       a GROUP shape whose children are polygonal faces
+	 * @param file       path of the file to write (which is created or
+	 *                   overwritten)
+	 * @param fillColors whether to store the fill color of each face
+	 * @throws IOException if writing to the file failed, or the mesh would need
+	 *                     a file larger than 2 GB
+	 * @since 1.5.0
+	 * @see #fromBinaryMesh(Path)
+	 */
+	public static void toBinaryMesh(PShape mesh, Path file, boolean fillColors) throws IOException {
+		final List<Polygon> faces = new ArrayList<>();
+		final List<Integer> colors = new ArrayList<>();
+		long rings = 0;
+		long coords = 0;
+		for (PShape child : getChildren(mesh)) {
+			final Geometry g = fromPShape(child);
+			for (int i = 0; i < g.getNumGeometries(); i++) {
+				if (g.getGeometryN(i) instanceof Polygon) {
+					final Polygon p = (Polygon) g.getGeometryN(i);
+					faces.add(p);
+					colors.add(getFillColor(child));
+					rings += 1 + p.getNumInteriorRing();
+					coords += p.getNumPoints() - (1 + p.getNumInteriorRing()); // rings are written unclosed
+				}
+			}
+		}
+
+		final long size = BINARY_MESH_HEADER_BYTES + 4L * (faces.size() + 1) + 4L * (rings + 1) + 8L * coords
+				+ (fillColors ? 4L * faces.size() : 0);
+		if (size > Integer.MAX_VALUE) { // a single mapping is limited to 2 GB
+			throw new IOException("Mesh is too large for a PGS binary mesh file (" + size + " bytes; the limit is 2 GB).");
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			final MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, size);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(BINARY_MESH_MAGIC).putInt(BINARY_MESH_VERSION).putInt(fillColors ? 1 : 0);
+			buffer.putInt(faces.size()).putInt((int) rings).putInt((int) coords);
+
+			int ring = 0;
+			for (Polygon face : faces) { // face -> ring offsets
+				buffer.putInt(ring);
+				ring += 1 + face.getNumInteriorRing();
+			}
+			buffer.putInt(ring);
+
+			int coord = 0;
+			for (Polygon face : faces) { // ring -> coordinate offsets
+				for (int r = -1; r < face.getNumInteriorRing(); r++) {
+					buffer.putInt(coord);
+					coord += (r == -1 ? face.getExteriorRing() : face.getInteriorRingN(r)).getNumPoints() - 1;
+				}
+			}
+			buffer.putInt(coord);
+
+			for (Polygon face : faces) {
+				for (int r = -1; r < face.getNumInteriorRing(); r++) {
+					final CoordinateSequence ringCoords = (r == -1 ? face.getExteriorRing() : face.getInteriorRingN(r)).getCoordinateSequence();
+					for (int i = 0; i < ringCoords.size() - 1; i++) {
+						buffer.putFloat((float) ringCoords.getX(i)).putFloat((float) ringCoords.getY(i));
+					}
+				}
+			}
+
+			if (fillColors) {
+				colors.forEach(buffer::putInt);
+			}
+			buffer.force();
+		}
+	}
+
+	/**
+	 * Loads a mesh written by {@link #toBinaryMesh(PShape, Path, boolean)}. The
+	 * file is memory-mapped and each face is built directly from the mapped
+	 * coordinate buffer, so no parsing or intermediate geometry is involved.
+	 * Large meshes are built in parallel (see
+	 * {@link #PARALLEL_CONVERSION_THRESHOLD}).
+	 * 
+	 * @param file path of the binary mesh file
+	 * @return a GROUP shape whose children are the faces of the mesh, in the order
+	 *         they were written
+	 * @throws IOException if the file could not be read, is not a binary mesh
+	 *                     file, is truncated or corrupt, or is larger than 2 GB
+	 * @since 1.5.0
+	 * @see #toBinaryMesh(PShape, Path, boolean)
+	 */
+	public static PShape fromBinaryMesh(Path file) throws IOException {
+		final MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) { // a single mapping is limited to 2 GB
+				throw new IOException("PGS binary mesh file is too large to map (" + channel.size() + " bytes; the limit is 2 GB): " + file);
+			}
+			buffer = channel.map(MapMode.READ_ONLY, 0, channel.size()); // mapping remains valid after close
+		}
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		if (buffer.remaining() < BINARY_MESH_HEADER_BYTES || buffer.getInt() != BINARY_MESH_MAGIC) {
+			throw new IOException("Not a PGS binary mesh file: " + file);
+		}
+		final int version = buffer.getInt();
+		if (version != BINARY_MESH_VERSION) {
+			throw new IOException("Unsupported PGS binary mesh version: " + version);
+		}
+		final boolean hasColors = (buffer.getInt() & 1) != 0;
+		final int faceCount = buffer.getInt();
+		final int ringCount = buffer.getInt();
+		final int coordCount = buffer.getInt();
+
+		// section offsets are computed in long so that corrupt counts can't overflow
+		final long ringsStart = BINARY_MESH_HEADER_BYTES + 4L * (faceCount + 1);
+		final long coordsStart = ringsStart + 4L * (ringCount + 1);
+		final long colorsStart = coordsStart + 8L * coordCount;
+		final long end = colorsStart + (hasColors ? 4L * faceCount : 0);
+		if (faceCount < 0 || ringCount < 0 || coordCount < 0 || end > buffer.capacity()) {
+			throw new IOException("Truncated or corrupt PGS binary mesh file (header describes " + end + " bytes; the file has "
+					+ buffer.capacity() + "): " + file);
+		}
+
+		// absolute reads from these views are safe to make concurrently
+		final IntBuffer faceOffsets = slice(buffer, BINARY_MESH_HEADER_BYTES, 4 * (faceCount + 1)).asIntBuffer();
+		final IntBuffer ringOffsets = slice(buffer, (int) ringsStart, 4 * (ringCount + 1)).asIntBuffer();
+		final FloatBuffer coords = slice(buffer, (int) coordsStart, 8 * coordCount).asFloatBuffer();
+		final IntBuffer colors = hasColors ? slice(buffer, (int) colorsStart, 4 * faceCount).asIntBuffer() : null;
+		if (!isMonotonic(faceOffsets, ringCount) || !isMonotonic(ringOffsets, coordCount)) {
+			throw new IOException("Corrupt PGS binary mesh file (offsets out of range): " + file);
+		}
+
+		final List<Integer> faces = IntStream.range(0, faceCount).boxed().collect(Collectors.toList());
+		final List<PShape> children = map(faces, f -> {
+			final PShape face = new PShape(PShape.PATH);
+			face.setFill(true);
+			face.setFill(hasColors ? colors.get(f) : micycle.pgs.color.Colors.WHITE);
+			face.setStroke(true);
+			face.setStroke(micycle.pgs.color.Colors.PINK);
+			face.setStrokeWeight(4);
+			face.setStrokeJoin(PConstants.ROUND);
+			face.setStrokeCap(PConstants.ROUND);
+			face.beginShape();
+			for (int r = faceOffsets.get(f); r < faceOffsets.get(f + 1); r++) {
+				final boolean hole = r > faceOffsets.get(f);
+				if (hole) {
+					face.beginContour();
+				}
+				for (int c = ringOffsets.get(r); c < ringOffsets.get(r + 1); c++) {
+					face.vertex(coords.get(2 * c), coords.get(2 * c + 1));
+				}
+				if (hole) {
+					face.endContour();
+				}
+			}
+			face.endShape(PConstants.CLOSE);
+			return face;
+		});
+
+		final PShape mesh = new PShape(GROUP);
+		children.forEach(mesh::addChild);
+		return mesh;
+	}
+
+	/**
+	 * Whether an offset table starts at 0, never decreases and ends at
+	 * <code>count</code>.
+	 */
+	private static boolean isMonotonic(IntBuffer offsets, int count) {
+		int previous = 0;
+		for (int i = 0; i < offsets.limit(); i++) {
+			final int offset = offsets.get(i);
+			if (offset < previous || (i == 0 && offset != 0)) {
+				return false;
+			}
+			previous = offset;
+		}
+		return previous == count;
+	}
+
+	/**
+	 * Returns a little-endian view of a region of a buffer (leaving the buffer's
+	 * position untouched).
+	 */
+	private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+		final ByteBuffer view = buffer.duplicate();
+		view.position(offset).limit(offset + length);
+		return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+	}
+
 	/**
 	 * Creates a Java2D/java.awt Shape representing a PShape.
 	 *
@@ -1276,7 +2017,8 @@ public final class PGS_Conversion {
 
 	public static PShape fromJava2D(Shape shape) {
 		if (shape != null) {
-			PathIterator pathIt = shape.getPathIterator(AffineTransform.getScaleInstance(1, 1), BEZIER_SAMPLE_DISTANCE);
+			PathIterator pathIt = shape.getPathIterator(AffineTransform.getScaleInstance(1, 1),
+					CURVE_MAX_DEVIATION > 0 ? CURVE_MAX_DEVIATION : BEZIER_SAMPLE_DISTANCE);
 			return toPShape(ShapeReader.read(pathIt, GEOM_FACTORY));
 		} else {
 			return new PShape();
@@ -1523,12 +2265,7 @@ public final class PGS_Conversion {
 	 * @since 1.4.0
 	 */
 	public static int getFillColor(PShape shape) {
-		try {
-			return PSHAPE_FILL_FIELD.getInt(shape);
-		} catch (IllegalArgumentException | IllegalAccessException e) {
-			e.printStackTrace();
-			return 0;
-		}
+		return PGS.getPShapeFillColor(shape);
 	}
 
 	/**
@@ -1742,23 +2479,25 @@ public final class PGS_Conversion {
 	 * @since 1.4.0
 	 */
 	public static PShape fromCubicBezier(PVector start, PVector controlPoint1, PVector controlPoint2, PVector end) {
-		CubicBezier bezier = new CubicBezier(start.x, start.y, controlPoint1.x, controlPoint1.y, controlPoint2.x, controlPoint2.y, end.x,
-				end.y);
-		double[][] samples = bezier.sampleEquidistantPoints(BEZIER_SAMPLE_DISTANCE);
-		final List<PVector> coords = new ArrayList<>(samples.length);
-		for (double[] sample : samples) {
-			coords.add(new PVector((float) sample[0], (float) sample[1]));
+		final List<Coordinate> samples = getCubicBezierPoints(start, controlPoint1, controlPoint2, end, BEZIER_SAMPLE_DISTANCE);
+		final List<PVector> coords = new ArrayList<>(samples.size());
+		for (Coordinate sample : samples) {
+			coords.add(new PVector((float) sample.x, (float) sample.y));
 		}
 		return fromPVector(coords);
 	}
 
 	/**
 	 * Subdivide/interpolate/discretise along a quadratic bezier curve, given by its
-	 * start, end and control points
+	 * start, end and control points: adaptively, if {@link #CURVE_MAX_DEVIATION}
+	 * is positive; otherwise equidistantly.
 	 *
 	 * @return list of points along curve
 	 */
 	private static List<Coordinate> getQuadraticBezierPoints(PVector start, PVector controlPoint, PVector end, float sampleDistance) {
+		if (CURVE_MAX_DEVIATION > 0) {
+			return BezierFlattener.flattenQuadratic(start.x, start.y, controlPoint.x, controlPoint.y, end.x, end.y, CURVE_MAX_DEVIATION);
+		}
 		// convert to cubic form
 		PVector cp1 = start.copy().add(controlPoint.copy().sub(start).mult(2 / 3f));
 		PVector cp2 = end.copy().add(controlPoint.copy().sub(end).mult(2 / 3f));
@@ -1766,13 +2505,19 @@ public final class PGS_Conversion {
 	}
 
 	/**
-	 * Generates a list of equidistant samples along a cubic bezier curve.
+	 * Generates a list of samples along a cubic bezier curve: adaptively, if
+	 * {@link #CURVE_MAX_DEVIATION} is positive; otherwise equidistantly.
 	 *
 	 * @param sampleDistance distance between successive samples on the curve
+	 *                       (when sampling equidistantly)
 	 * @return
 	 */
 	private static List<Coordinate> getCubicBezierPoints(PVector start, PVector controlPoint1, PVector controlPoint2, PVector end,
 			float sampleDistance) {
+		if (CURVE_MAX_DEVIATION > 0) {
+			return BezierFlattener.flattenCubic(start.x, start.y, controlPoint1.x, controlPoint1.y, controlPoint2.x, controlPoint2.y, end.x,
+					end.y, CURVE_MAX_DEVIATION);
+		}
 		CubicBezier bezier = new CubicBezier(start.x, start.y, controlPoint1.x, controlPoint1.y, controlPoint2.x, controlPoint2.y, end.x,
 				end.y);
 		double[][] samples = bezier.sampleEquidistantPoints(sampleDistance);
@@ -1878,41 +2623,161 @@ public final class PGS_Conversion {
 		return vertexGroups;
 	}
 
-	static class PShapeData {
+	/**
+	 * Weak identity-keyed cache of PShape->Geometry conversions.
+	 */
+	private static final class ConversionCache {
+
+		static final AtomicLong HITS = new AtomicLong();
+		static final AtomicLong MISSES = new AtomicLong();
+		/*
+		 * PShape does not override equals()/hashCode(), so a WeakHashMap is keyed on
+		 * PShape identity.
+		 */
+		private static final Map<PShape, Entry> CACHE = Collections.synchronizedMap(new WeakHashMap<>());
 
-		private static Field fillColorF, fillF, strokeColorF, strokeWeightF, strokeF;
+		private ConversionCache() {
+		}
 
-		static {
-			try {
-				fillColorF = PShape.class.getDeclaredField("fillColor");
-				fillColorF.setAccessible(true);
-				fillF = PShape.class.getDeclaredField("fill");
-				fillF.setAccessible(true);
-				strokeColorF = PShape.class.getDeclaredField("strokeColor");
-				strokeColorF.setAccessible(true);
-				strokeWeightF = PShape.class.getDeclaredField("strokeWeight");
-				strokeWeightF.setAccessible(true);
-				strokeF = PShape.class.getDeclaredField("stroke");
-				strokeF.setAccessible(true);
-			} catch (NoSuchFieldException | SecurityException e) {
-				e.printStackTrace();
+		static Geometry get(PShape shape) {
+			final long stamp = stamp(shape);
+			final Entry entry = CACHE.get(shape);
+			final Geometry g;
+			if (entry != null && entry.stamp == stamp && entry.matches(shape)) {
+				HITS.incrementAndGet();
+				g = entry.geometry;
+			} else {
+				MISSES.incrementAndGet();
+				g = convertPShape(shape);
+				CACHE.put(shape, new Entry(g, stamp, shape));
 			}
+			/*
+			 * Cached geometries are never handed out (nor modified once cached), so may be
+			 * read by concurrent conversions. Style is not part of the stamp, so is
+			 * attached to the copy afresh.
+			 */
+			final Geometry copy = g.copy();
+			copy.setUserData(PRESERVE_STYLE ? new PShapeData(shape) : null);
+			return copy;
+		}
+
+		static void remove(PShape shape) {
+			CACHE.remove(shape);
 		}
 
+		static void clear() {
+			CACHE.clear();
+			HITS.set(0);
+			MISSES.set(0);
+		}
+
+		/**
+		 * Computes a cheap mutation stamp of a (non-GROUP) shape from its vertices,
+		 * vertex codes, affine matrix and primitive parameters, and the conversion
+		 * flags that affect the geometry built from it.
+		 */
+		private static long stamp(PShape shape) {
+			long h = (PACKED_COORDINATES ? 1 : 0) + (HANDLE_MULTICONTOUR ? 2 : 0);
+			h = 31 * h + Double.hashCode(CURVE_MAX_DEVIATION);
+			h = 31 * h + shape.getFamily();
+			h = 31 * h + shape.getKind();
+			h = 31 * h + (shape.isClosed() ? 1 : 0);
+			if (shape.getFamily() == PShape.PRIMITIVE) {
+				h = 31 * h + Arrays.hashCode(shape.getParams());
+			} else {
+				final int n = shape.getVertexCount();
+				h = 31 * h + n;
+				for (int i = 0; i < n; i++) {
+					h = 31 * h + Float.floatToIntBits(shape.getVertexX(i));
+					h = 31 * h + Float.floatToIntBits(shape.getVertexY(i));
+				}
+				h = 31 * h + Arrays.hashCode(shape.getVertexCodes());
+			}
+			final PMatrix matrix = PGS.getPShapeMatrix(shape);
+			if (matrix != null) {
+				h = 31 * h + Arrays.hashCode(matrix.get(null));
+			}
+			return h;
+		}
+
+		private static final class Entry {
+
+			final Geometry geometry;
+			final long stamp;
+			/*
+			 * Exact copies of the shape's vertex data when cached, which confirm a stamp
+			 * match (the stamp is a hash, so distinct shapes may collide).
+			 */
+			final int family, kind;
+			final float[] params, vertices, matrix;
+			final int[] codes;
+
+			Entry(Geometry geometry, long stamp, PShape shape) {
+				this.geometry = geometry;
+				this.stamp = stamp;
+				family = shape.getFamily();
+				kind = shape.getKind();
+				if (family == PShape.PRIMITIVE) {
+					params = shape.getParams();
+					vertices = null;
+					codes = null;
+				} else {
+					params = null;
+					final int n = shape.getVertexCount();
+					vertices = new float[2 * n];
+					for (int i = 0; i < n; i++) {
+						vertices[2 * i] = shape.getVertexX(i);
+						vertices[2 * i + 1] = shape.getVertexY(i);
+					}
+					final int[] c = shape.getVertexCodes();
+					codes = c == null ? null : c.clone();
+				}
+				final PMatrix m = PGS.getPShapeMatrix(shape);
+				matrix = m == null ? null : m.get(null);
+			}
+
+			/**
+			 * @return whether the shape's vertex data is exactly that of the shape this
+			 *         entry was built from (flags are covered by the stamp alone)
+			 */
+			boolean matches(PShape shape) {
+				if (shape.getFamily() != family || shape.getKind() != kind) {
+					return false;
+				}
+				if (family == PShape.PRIMITIVE) {
+					if (!Arrays.equals(params, shape.getParams())) {
+						return false;
+					}
+				} else {
+					final int n = shape.getVertexCount();
+					if (vertices.length != 2 * n || !Arrays.equals(codes, shape.getVertexCodes())) {
+						return false;
+					}
+					for (int i = 0; i < n; i++) {
+						if (Float.floatToIntBits(vertices[2 * i]) != Float.floatToIntBits(shape.getVertexX(i))
+								|| Float.floatToIntBits(vertices[2 * i + 1]) != Float.floatToIntBits(shape.getVertexY(i))) {
+							return false;
+						}
+					}
+				}
+				final PMatrix m = PGS.getPShapeMatrix(shape);
+				return Arrays.equals(matrix, m == null ? null : m.get(null));
+			}
+		}
+	}
+
+	static class PShapeData {
+
 		int fillColor, strokeColor;
 		float strokeWeight;
 		boolean fill, stroke;
 
 		PShapeData(PShape shape) {
-			try {
-				fillColor = fillColorF.getInt(shape);
-				fill = fillF.getBoolean(shape);
-				stroke = strokeF.getBoolean(shape);
-				strokeColor = strokeColorF.getInt(shape);
-				strokeWeight = strokeWeightF.getFloat(shape);
-			} catch (IllegalArgumentException | IllegalAccessException e) {
-				e.printStackTrace();
-			}
+			fillColor = PGS.getPShapeFillColor(shape);
+			fill = PGS.getPShapeFill(shape);
+			stroke = PGS.getPShapeStroke(shape);
+			strokeColor = PGS.getPShapeStrokeColor(shape);
+			strokeWeight = PGS.getPShapeStrokeWeight(shape);
 		}
 
 		/**
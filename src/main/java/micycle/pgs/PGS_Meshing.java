@@ -37,10 +37,12 @@ import org.tinfour.common.Vertex;
 import org.tinfour.utils.TriangleCollector;
 import org.tinspin.index.PointIndex;
 import org.tinspin.index.kdtree.KDTree;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import it.unimi.dsi.util.XoRoShiRo128PlusRandomGenerator;
 import micycle.pgs.PGS_Conversion.PShapeData;
 import micycle.pgs.color.Colors;
 import micycle.pgs.commons.AreaMerge;
+import micycle.pgs.commons.FlatMesh;
 import micycle.pgs.commons.IncrementalTinDual;
 import micycle.pgs.commons.PEdge;
 import micycle.pgs.commons.PMesh;
@@ -722,6 +724,95 @@ public class PGS_Meshing {
 		return m.getMesh();
 	}
 
+	/**
+	 * Smoothes a flat mesh via iterative <i>Taubin smoothing</i> (alternating
+	 * shrinking and inflating passes of Laplacian smoothing, in which vertices are
+	 * moved towards the average position of their adjacent vertices). This is the
+	 * same smoothing as {@link #smoothMesh(PShape, int, boolean, double, double)},
+	 * but operates directly on the vertex arrays of the mesh.
+	 * 
+	 * @param mesh              a flat mesh, whose faces constitute a conforming
+	 *                          mesh
+	 * @param iterations        number of smoothing passes to perform. Most meshes
+	 *                          will converge very well by around 50-100 passes.
+	 * @param preservePerimeter boolean flag to exclude the boundary vertices from
+	 *                          being smoothed (thus preserving the mesh perimeter).
+	 *                          Generally this should be set to true, otherwise the
+	 *                          mesh will shrink as it is smoothed.
+	 * @return a copy of the mesh (sharing its topology and colors) having smoothed
+	 *         vertex coordinates
+	 * @since 1.5.0
+	 */
+	public static FlatMesh smoothMesh(FlatMesh mesh, int iterations, boolean preservePerimeter) {
+		final int vertices = mesh.getVertexCount();
+
+		// count the faces each undirected edge belongs to (perimeter edges belong to 1)
+		final Long2IntOpenHashMap edgeCounts = new Long2IntOpenHashMap(mesh.vertexIndices.length);
+		for (int f = 0; f < mesh.getFaceCount(); f++) {
+			final int n = mesh.getFaceSize(f);
+			for (int i = 0; i < n; i++) {
+				final int a = mesh.getFaceVertex(f, i);
+				final int b = mesh.getFaceVertex(f, (i + 1) % n);
+				if (a != b) {
+					edgeCounts.addTo(FlatMesh.edgeKey(a, b), 1);
+				}
+			}
+		}
+
+		// vertex adjacency, in compressed-row form
+		final boolean[] onBoundary = new boolean[vertices];
+		final int[] offsets = new int[vertices + 1];
+		edgeCounts.long2IntEntrySet().forEach(e -> {
+			final int a = (int) (e.getLongKey() >>> 32);
+			final int b = (int) e.getLongKey();
+			offsets[a + 1]++;
+			offsets[b + 1]++;
+			if (e.getIntValue() == 1) {
+				onBoundary[a] = true;
+				onBoundary[b] = true;
+			}
+		});
+		for (int v = 0; v < vertices; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		final int[] neighbors = new int[offsets[vertices]];
+		final int[] fill = Arrays.copyOf(offsets, vertices);
+		edgeCounts.keySet().forEach((long e) -> {
+			final int a = (int) (e >>> 32);
+			final int b = (int) e;
+			neighbors[fill[a]++] = b;
+			neighbors[fill[b]++] = a;
+		});
+
+		double[] coords = mesh.coords.clone();
+		double[] next = new double[coords.length];
+		for (int i = 0; i < iterations; i++) {
+			for (double scale : new double[] { 0.25, -0.251 }) { // shrink, then inflate
+				for (int v = 0; v < vertices; v++) {
+					double x = coords[2 * v];
+					double y = coords[2 * v + 1];
+					final int degree = offsets[v + 1] - offsets[v];
+					if (!(preservePerimeter && onBoundary[v]) && degree > 0) {
+						double mx = 0, my = 0;
+						for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+							mx += coords[2 * neighbors[k]];
+							my += coords[2 * neighbors[k] + 1];
+						}
+						x += scale * (mx / degree - x);
+						y += scale * (my / degree - y);
+					}
+					next[2 * v] = x;
+					next[2 * v + 1] = y;
+				}
+				final double[] swap = coords;
+				coords = next;
+				next = swap;
+			}
+		}
+
+		return mesh.withCoords(coords);
+	}
+
 	/**
 	 * Simplifies the boundaries of the faces in a mesh while preserving the
 	 * original mesh topology.
@@ -38,6 +38,7 @@ import micycle.pgs.commons.CornerRounding;
 import micycle.pgs.commons.DiscreteCurveEvolution;
 import micycle.pgs.commons.EllipticFourierDesc;
 import micycle.pgs.commons.GaussianLineSmoothing;
+import micycle.pgs.commons.ShapeHandle;
 import micycle.pgs.commons.ShapeInterpolation;
 import processing.core.PConstants;
 import processing.core.PShape;
@@ -73,6 +74,20 @@ public final class PGS_Morphology {
 		return toPShape(fromPShape(shape).buffer(buffer, BufferParameters.DEFAULT_QUADRANT_SEGMENTS));
 	}
 
+	/**
+	 * Computes a rounded buffer area around the shape of a handle, without
+	 * converting the result into a PShape.
+	 * 
+	 * @param shape
+	 * @param buffer extent/width of the buffer (which may be positive or negative)
+	 * @return a handle of the buffer region (which may be empty)
+	 * @since 1.5.0
+	 * @see #buffer(PShape, double)
+	 */
+	public static ShapeHandle buffer(ShapeHandle shape, double buffer) {
+		return ShapeHandle.of(shape.getGeometry().buffer(buffer, BufferParameters.DEFAULT_QUADRANT_SEGMENTS));
+	}
+
 	/**
 	 * Computes a buffer area around the shape, having the given buffer width and
 	 * buffer style (either round, miter, bevel).
@@ -163,6 +178,20 @@ public final class PGS_Morphology {
 		return toPShape(DouglasPeuckerSimplifier.simplify(fromPShape(shape), distanceTolerance));
 	}
 
+	/**
+	 * Simplifies the shape of a handle using the Douglas-Peucker algorithm,
+	 * without converting the result into a PShape.
+	 * 
+	 * @param shape
+	 * @param distanceTolerance the tolerance to use
+	 * @return a handle of the simplifed shape
+	 * @since 1.5.0
+	 * @see #simplify(PShape, double)
+	 */
+	public static ShapeHandle simplify(ShapeHandle shape, double distanceTolerance) {
+		return ShapeHandle.of(DouglasPeuckerSimplifier.simplify(shape.getGeometry(), distanceTolerance));
+	}
+
 	/**
 	 * Simplifies a shape using the Visvalingam-Whyatt area-based algorithm,
 	 * reducing the complexity and number of vertices of the shape.
@@ -913,7 +913,7 @@ public final class PGS_PointSet {
 	/**
 	 * Computes the hilbert index of a coordinate on a hilbert curve of order n.
 	 */
-	private static int xy2Hilbert(final int px, final int py, final int n) {
+	static int xy2Hilbert(final int px, final int py, final int n) {
 		int i, xi, yi;
 		int s, temp;
 
@@ -6,20 +6,42 @@ import static micycle.pgs.PGS_Conversion.toPShape;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import org.locationtech.jts.algorithm.Area;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.Polygonal;
+import org.locationtech.jts.geom.PrecisionModel;
 import org.locationtech.jts.geom.prep.PreparedGeometry;
 import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.geom.util.PolygonExtracter;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.locationtech.jts.noding.snapround.SnapRoundingNoder;
 import org.locationtech.jts.operation.overlayng.CoverageUnion;
+import org.locationtech.jts.operation.overlayng.MultiOperationOverlayNG;
 import org.locationtech.jts.operation.overlayng.OverlayNG;
+import org.locationtech.jts.operation.overlayng.OverlayNGRobust;
+import org.locationtech.jts.operation.overlayng.UnaryUnionNG;
 import org.locationtech.jts.operation.union.UnaryUnionOp;
+import org.locationtech.jts.precision.GeometryPrecisionReducer;
 import org.locationtech.jts.util.GeometricShapeFactory;
 
+import micycle.pgs.commons.BooleanAccumulator;
 import micycle.pgs.commons.PEdge;
+import micycle.pgs.commons.ShapeHandle;
 import processing.core.PConstants;
 import processing.core.PShape;
 import processing.core.PVector;
@@ -32,9 +54,56 @@ import processing.core.PVector;
  */
 public final class PGS_ShapeBoolean {
 
+	/**
+	 * The minimum number of shapes at which {@link #union(Collection)} unions
+	 * shapes in parallel (via {@link #union(Collection, double)}), rather than on
+	 * a single thread. Default = 1000.
+	 * 
+	 * @since 1.5.0
+	 */
+	public static int PARALLEL_UNION_THRESHOLD = 1000;
+
+	/**
+	 * When positive, the boolean operations of this class (other than the mesh
+	 * union methods) are computed in fixed precision: vertices are snap-rounded to
+	 * a grid having cells of this size (using a snap-rounding noder).
+	 * Fixed-precision overlays never fail with topology errors, and are not slowed
+	 * by noisy or near-degenerate inputs, although all output coordinates lie on
+	 * the grid (including those of mesh faces that don't need an overlay). Default
+	 * = 0 (floating precision).
+	 * 
+	 * @since 1.5.0
+	 * @see #overlay(PShape, PShape, BooleanOperation, double)
+	 */
+	public static double PRECISION_GRID_SIZE = 0;
+
 	private PGS_ShapeBoolean() {
 	}
 
+	/**
+	 * Boolean set-operations, for use with
+	 * {@link PGS_ShapeBoolean#overlay(PShape, PShape, BooleanOperation...)
+	 * overlay()}.
+	 * 
+	 * @since 1.5.0
+	 */
+	public enum BooleanOperation {
+		/** The area shared by both shapes. */
+		INTERSECTION(OverlayNG.INTERSECTION),
+		/** The total area of both shapes. */
+		UNION(OverlayNG.UNION),
+		/** The area of the first shape not in the second shape. */
+		DIFFERENCE(OverlayNG.DIFFERENCE),
+		/** The area in either shape, but not both. */
+		SYMDIFFERENCE(OverlayNG.SYMDIFFERENCE);
+
+		private final int opCode;
+
+		BooleanOperation(int opCode) {
+			this.opCode = opCode;
+		}
+	}
+
 	/**
 	 * Calculates the intersection of two shapes, producing a new shape representing
 	 * the shared area.
@@ -54,10 +123,23 @@ public final class PGS_ShapeBoolean {
 	 *         input shape, 'a'.
 	 */
 	public static PShape intersect(final PShape a, final PShape b) {
-		Geometry shapeA = fromPShape(a);
-		Geometry result = OverlayNG.overlay(shapeA, fromPShape(b), OverlayNG.INTERSECTION);
-		result.setUserData(shapeA.getUserData()); // preserve shape style (if any)
-		return toPShape(result);
+		return toPShape(overlay(fromPShape(a), fromPShape(b), OverlayNG.INTERSECTION));
+	}
+
+	/**
+	 * Calculates the intersection of two shape handles. Unlike
+	 * {@link #intersect(PShape, PShape)}, this method operates on the geometry form
+	 * of its inputs and does not convert its result into a PShape, so calls can be
+	 * chained without intermediate conversions.
+	 * 
+	 * @param a The first shape to be intersected.
+	 * @param b The second shape to intersect with the first.
+	 * @return A handle of the area of intersection between the two input shapes.
+	 * @since 1.5.0
+	 * @see #intersect(PShape, PShape)
+	 */
+	public static ShapeHandle intersect(final ShapeHandle a, final ShapeHandle b) {
+		return ShapeHandle.of(overlay(a.getGeometry(), b.getGeometry(), OverlayNG.INTERSECTION));
 	}
 
 	/**
@@ -76,6 +158,8 @@ public final class PGS_ShapeBoolean {
 	 * {@link #intersect(PShape, PShape) intersect(a, b)} method repeatedly for
 	 * every face of a mesh-like shape <code>a</code> against an area
 	 * <code>b</code>.
+	 * Faces whose envelope lies away from the area are discarded without being
+	 * converted.
 	 * 
 	 * @param mesh A mesh-like GROUP shape that will be intersected with the
 	 *             polygonal area.
@@ -87,14 +171,15 @@ public final class PGS_ShapeBoolean {
 	public static PShape intersectMesh(final PShape mesh, final PShape area) {
 		final Geometry g = fromPShape(area);
 		final PreparedGeometry cache = PreparedGeometryFactory.prepare(g);
+		final STRtree areaParts = indexParts(g);
 
-		List<Geometry> faces = PGS_Conversion.getChildren(mesh).parallelStream().map(s -> {
+		List<Geometry> faces = PGS_Conversion.getChildren(mesh).parallelStream().filter(s -> mayIntersect(s, areaParts)).map(s -> {
 			final Geometry f = PGS_Conversion.fromPShape(s);
 			if (cache.containsProperly(f)) {
-				return f;
+				return snapToGrid(f);
 			} else {
 				// preserve the fill etc of the PShape during intersection
-				Geometry boundaryIntersect = OverlayNG.overlay(f, g, OverlayNG.INTERSECTION);
+				Geometry boundaryIntersect = overlayNG(f, g, OverlayNG.INTERSECTION);
 				boundaryIntersect.setUserData(f.getUserData());
 				return boundaryIntersect;
 			}
@@ -102,6 +187,86 @@ public final class PGS_ShapeBoolean {
 		return PGS_Conversion.toPShape(faces);
 	}
 
+	/**
+	 * Intersects every face of one mesh-like shape with every face of another,
+	 * producing the individual pieces in which faces of the two meshes overlap
+	 * (for example, intersecting a mesh of zones with a mesh of cells).
+	 * <p>
+	 * The faces of the second mesh are indexed by an STR-tree, so only face pairs
+	 * whose envelopes overlap are intersected, and these pairs are processed in
+	 * parallel. The cost of the operation therefore scales with the number of
+	 * actual overlaps rather than with the product of the mesh sizes, making it
+	 * much faster than calling {@link #intersect(PShape, PShape) intersect(a, b)}
+	 * on every pair of faces.
+	 * <p>
+	 * Each child of the output is named <code>"i,j"</code>, where <code>i</code>
+	 * and <code>j</code> are the indices of the source faces (from
+	 * {@link PGS_Conversion#getChildren(PShape) getChildren()}) of the first and
+	 * second mesh respectively. Pairs of faces that only touch (sharing no area)
+	 * produce no output.
+	 * 
+	 * @param meshA a mesh-like GROUP shape. The output pieces retain the style of
+	 *              the faces of this mesh.
+	 * @param meshB a mesh-like GROUP shape
+	 * @return a GROUP shape whose children are the non-empty intersections of every
+	 *         pair of faces from the two meshes, ordered by face index in the
+	 *         first mesh, then the second
+	 * @since 1.5.0
+	 */
+	public static PShape intersectMeshes(final PShape meshA, final PShape meshB) {
+		final List<Geometry> facesA = PGS_Conversion.getChildren(meshA).parallelStream().map(PGS_Conversion::fromPShape)
+				.collect(Collectors.toList());
+		final List<Geometry> facesB = PGS_Conversion.getChildren(meshB).parallelStream().map(PGS_Conversion::fromPShape)
+				.collect(Collectors.toList());
+
+		final STRtree tree = new STRtree();
+		for (int j = 0; j < facesB.size(); j++) {
+			tree.insert(facesB.get(j).getEnvelopeInternal(), j);
+		}
+		tree.build();
+
+		final List<FaceOverlap> overlaps = IntStream.range(0, facesA.size()).parallel().mapToObj(i -> {
+			final Geometry a = facesA.get(i);
+			@SuppressWarnings("unchecked")
+			final List<Integer> candidates = tree.query(a.getEnvelopeInternal());
+			if (candidates.isEmpty()) {
+				return Collections.<FaceOverlap>emptyList();
+			}
+			Collections.sort(candidates);
+			final PreparedGeometry cache = PreparedGeometryFactory.prepare(a);
+			final List<FaceOverlap> faceOverlaps = new ArrayList<>();
+			for (int j : candidates) {
+				final Geometry b = facesB.get(j);
+				if (cache.disjoint(b)) {
+					continue;
+				}
+				Geometry overlap;
+				if (cache.containsProperly(b)) {
+					overlap = snapToGrid(b.copy());
+				} else {
+					overlap = overlayNG(a, b, OverlayNG.INTERSECTION);
+					if (overlap.isEmpty() || overlap.getDimension() < 2) {
+						continue; // faces only touch
+					}
+					if (!(overlap instanceof Polygonal)) { // drop lower-dimension parts
+						overlap = a.getFactory().buildGeometry(PolygonExtracter.getPolygons(overlap));
+					}
+				}
+				overlap.setUserData(a.getUserData()); // preserve shape style (if any)
+				faceOverlaps.add(new FaceOverlap(i, j, overlap));
+			}
+			return faceOverlaps;
+		}).flatMap(List::stream).collect(Collectors.toList());
+
+		final PShape out = new PShape(PConstants.GROUP);
+		for (FaceOverlap o : overlaps) {
+			final PShape piece = toPShape(o.overlap);
+			piece.setName(o.faceA + "," + o.faceB);
+			out.addChild(piece);
+		}
+		return out;
+	}
+
 	/**
 	 * Combines two shapes into a single new shape, representing the total area of
 	 * both input shapes.
@@ -118,10 +283,23 @@ public final class PGS_ShapeBoolean {
 	 * @see #union(PShape...) For union operations on multiple shapes.
 	 */
 	public static PShape union(final PShape a, final PShape b) {
-		Geometry shapeA = fromPShape(a);
-		Geometry result = OverlayNG.overlay(shapeA, fromPShape(b), OverlayNG.UNION);
-		result.setUserData(shapeA.getUserData()); // preserve shape style (if any)
-		return toPShape(result);
+		return toPShape(overlay(fromPShape(a), fromPShape(b), OverlayNG.UNION));
+	}
+
+	/**
+	 * Combines two shape handles into a single new shape, representing the total
+	 * area of both input shapes. Unlike {@link #union(PShape, PShape)}, this method
+	 * operates on the geometry form of its inputs and does not convert its result
+	 * into a PShape, so calls can be chained without intermediate conversions.
+	 *
+	 * @param a The first shape to be unified.
+	 * @param b The second shape to be unified with the first.
+	 * @return A handle of the union of the two input shapes.
+	 * @since 1.5.0
+	 * @see #union(PShape, PShape)
+	 */
+	public static ShapeHandle union(final ShapeHandle a, final ShapeHandle b) {
+		return ShapeHandle.of(overlay(a.getGeometry(), b.getGeometry(), OverlayNG.UNION));
 	}
 
 	/**
@@ -129,6 +307,9 @@ public final class PGS_ShapeBoolean {
 	 * into a new shape that represents the total area of all the input shapes.
 	 * Overlapping areas among the shapes are included only once in the resulting
 	 * shape.
+	 * <p>
+	 * Collections of at least {@link #PARALLEL_UNION_THRESHOLD} shapes are unioned
+	 * in parallel (see {@link #union(Collection, double)}).
 	 *
 	 * @param shapes A list of PShapes to be unified.
 	 * @return A new PShape object representing the union of the input shapes.
@@ -136,9 +317,47 @@ public final class PGS_ShapeBoolean {
 	 * @see #union(PShape...) For union operations on a variable number of shapes.
 	 */
 	public static PShape union(final Collection<PShape> shapes) {
+		if (shapes.size() >= PARALLEL_UNION_THRESHOLD) {
+			return union(shapes, 0);
+		}
 		Collection<Geometry> polygons = new ArrayList<>();
 		shapes.forEach(s -> polygons.add(fromPShape(s)));
-		return toPShape(UnaryUnionOp.union(polygons));
+		return toPShape(unaryUnion(polygons));
+	}
+
+	/**
+	 * Performs a geometric union operation on a collection of shapes, using a
+	 * parallel divide-and-conquer (cascaded) union, optionally removing tiny
+	 * slivers as it goes.
+	 * <p>
+	 * Shapes are grouped spatially by an STR-tree; the shapes in each tree leaf are
+	 * unioned together, and the results are merged up the tree, with the subtrees
+	 * of each node unioned concurrently on a fork-join pool. Since nearby shapes
+	 * are unioned first, the intermediate results stay small, and the operation
+	 * scales to very many input shapes (such as the circles of a large circle
+	 * packing).
+	 * <p>
+	 * When <code>minSliverArea</code> is positive, any polygon or hole having a
+	 * smaller area is removed from the intermediate results at each merge. This
+	 * removes the tiny gaps and fragments that arise between nearly-coincident
+	 * shapes, and also keeps intermediate results simple, but will also remove
+	 * any input shape that is itself smaller than the threshold.
+	 *
+	 * @param shapes        A collection of PShapes to be unified.
+	 * @param minSliverArea polygons and holes having an area smaller than this are
+	 *                      removed during merging. 0 disables sliver removal.
+	 * @return A new PShape object representing the union of the input shapes.
+	 * @since 1.5.0
+	 */
+	public static PShape union(final Collection<PShape> shapes, final double minSliverArea) {
+		final List<Geometry> geometries = shapes.parallelStream().map(PGS_Conversion::fromPShape).collect(Collectors.toList());
+		if (geometries.isEmpty()) {
+			return new PShape(PConstants.GROUP);
+		}
+		final STRtree tree = new STRtree();
+		geometries.forEach(g -> tree.insert(g.getEnvelopeInternal(), g));
+		final Geometry union = ForkJoinPool.commonPool().invoke(new UnionTask(tree.itemsTree(), minSliverArea));
+		return toPShape(union);
 	}
 
 	/**
@@ -259,10 +478,23 @@ public final class PGS_ShapeBoolean {
 	 * @see #simpleSubtract(PShape, PShape)
 	 */
 	public static PShape subtract(final PShape a, final PShape b) {
-		Geometry shapeA = fromPShape(a);
-		Geometry result = OverlayNG.overlay(shapeA, fromPShape(b), OverlayNG.DIFFERENCE);
-		result.setUserData(shapeA.getUserData()); // preserve shape style (if any)
-		return toPShape(result);
+		return toPShape(overlay(fromPShape(a), fromPShape(b), OverlayNG.DIFFERENCE));
+	}
+
+	/**
+	 * Subtracts one shape handle (b) from another (a). Unlike
+	 * {@link #subtract(PShape, PShape)}, this method operates on the geometry form
+	 * of its inputs and does not convert its result into a PShape, so calls can be
+	 * chained without intermediate conversions.
+	 * 
+	 * @param a The shape from which the other shape will be subtracted.
+	 * @param b The shape that will be subtracted from the first shape.
+	 * @return A handle of the difference between the two input shapes.
+	 * @since 1.5.0
+	 * @see #subtract(PShape, PShape)
+	 */
+	public static ShapeHandle subtract(final ShapeHandle a, final ShapeHandle b) {
+		return ShapeHandle.of(overlay(a.getGeometry(), b.getGeometry(), OverlayNG.DIFFERENCE));
 	}
 
 	/**
@@ -307,6 +539,11 @@ public final class PGS_ShapeBoolean {
 	 * This method is more efficient than repeatedly calling
 	 * {@link #subtract(PShape, PShape) subtract(a, b)} on each face of a mesh-like
 	 * shape.
+	 * Faces that lie outside the area are included in the output as copies of the
+	 * input faces (the input mesh is left unchanged). Faces whose envelope lies
+	 * away from the area are copied without being converted (unless
+	 * {@link #PRECISION_GRID_SIZE} is set, in which case they are snapped to the
+	 * grid).
 	 *
 	 * @param mesh A GROUP PShape that represents a mesh-like shape.
 	 * @param area A polygonal PShape from which the mesh shape is subtracted.
@@ -317,23 +554,27 @@ public final class PGS_ShapeBoolean {
 	public static PShape subtractMesh(PShape mesh, PShape area) {
 		final Geometry g = fromPShape(area);
 		final PreparedGeometry cache = PreparedGeometryFactory.prepare(g);
+		final STRtree areaParts = indexParts(g);
 
-		List<Geometry> faces = PGS_Conversion.getChildren(mesh).parallelStream().map(s -> {
+		List<PShape> faces = PGS_Conversion.getChildren(mesh).parallelStream().map(s -> {
+			if (!mayIntersect(s, areaParts)) {
+				return passThrough(s); // envelope outside area -- keep
+			}
 			final Geometry f = PGS_Conversion.fromPShape(s);
 			if (cache.containsProperly(f)) {
 				return null; // inside -- remove
 			} else {
 				if (cache.disjoint(f)) {
-					return f; // outside -- keep
+					return passThrough(s); // outside -- keep
 				}
 				// preserve the fill etc of the PShape during subtraction
-				Geometry boundarySubtract = OverlayNG.overlay(f, g, OverlayNG.DIFFERENCE);
+				Geometry boundarySubtract = overlayNG(f, g, OverlayNG.DIFFERENCE);
 				boundarySubtract.setUserData(f.getUserData());
-				return boundarySubtract;
+				return toPShape(boundarySubtract);
 			}
-		}).collect(Collectors.toList());
+		}).filter(Objects::nonNull).collect(Collectors.toList());
 
-		return PGS_Conversion.toPShape(faces);
+		return PGS_Conversion.flatten(faces);
 	}
 
 	/**
@@ -347,12 +588,117 @@ public final class PGS_ShapeBoolean {
 	 *         input shapes; the new shape will have the style of shape a.
 	 */
 	public static PShape symDifference(PShape a, PShape b) {
-		Geometry shapeA = fromPShape(a);
-		Geometry result = OverlayNG.overlay(shapeA, fromPShape(b), OverlayNG.SYMDIFFERENCE);
-		result.setUserData(shapeA.getUserData()); // preserve shape style (if any)
+		return toPShape(overlay(fromPShape(a), fromPShape(b), OverlayNG.SYMDIFFERENCE));
+	}
+
+	/**
+	 * Calculates the symmetric difference between two shape handles. Unlike
+	 * {@link #symDifference(PShape, PShape)}, this method operates on the geometry
+	 * form of its inputs and does not convert its result into a PShape, so calls
+	 * can be chained without intermediate conversions.
+	 * 
+	 * @param a The first shape.
+	 * @param b The second shape.
+	 * @return A handle of the symmetric difference between the two input shapes.
+	 * @since 1.5.0
+	 * @see #symDifference(PShape, PShape)
+	 */
+	public static ShapeHandle symDifference(final ShapeHandle a, final ShapeHandle b) {
+		return ShapeHandle.of(overlay(a.getGeometry(), b.getGeometry(), OverlayNG.SYMDIFFERENCE));
+	}
+
+	/**
+	 * Computes several boolean operations on the same pair of shapes at once.
+	 * <p>
+	 * An overlay nodes the edges of both shapes together and labels the resulting
+	 * topology graph; this is most of the cost of any boolean operation. Here, the
+	 * graph is built only once, and each requested result is extracted from it.
+	 * This is faster than calling the individual methods (such as
+	 * {@link #intersect(PShape, PShape) intersect()} and
+	 * {@link #subtract(PShape, PShape) subtract()}) separately when multiple
+	 * results are needed for the same pair of shapes, such as for Venn-style
+	 * visualisations or change detection. The saving is greatest when
+	 * {@link BooleanOperation#UNION UNION} or
+	 * {@link BooleanOperation#SYMDIFFERENCE SYMDIFFERENCE} are among the
+	 * operations (the individual intersection and difference methods can clip
+	 * their inputs to the result extent, which a shared graph cannot).
+	 * <p>
+	 * The shared graph is used for polygonal shapes in floating precision only;
+	 * other inputs (or when {@link #PRECISION_GRID_SIZE} is set) are overlaid
+	 * separately for each operation.
+	 * 
+	 * @param a          The first shape.
+	 * @param b          The second shape.
+	 * @param operations the operations to compute. If none are given, all
+	 *                   operations are computed.
+	 * @return a map of each requested operation to its result. Results have the
+	 *         style of shape a.
+	 * @since 1.5.0
+	 */
+	public static Map<BooleanOperation, PShape> overlay(final PShape a, final PShape b, final BooleanOperation... operations) {
+		final Geometry g0 = fromPShape(a);
+		final Geometry g1 = fromPShape(b);
+		final BooleanOperation[] ops = operations.length == 0 ? BooleanOperation.values() : operations;
+
+		final Map<BooleanOperation, PShape> results = new EnumMap<>(BooleanOperation.class);
+		if (ops.length == 1 || !(g0 instanceof Polygonal) || !(g1 instanceof Polygonal) || PRECISION_GRID_SIZE > 0) {
+			for (BooleanOperation op : ops) {
+				results.put(op, toPShape(overlay(g0, g1, op.opCode)));
+			}
+		} else {
+			final MultiOperationOverlayNG overlay = new MultiOperationOverlayNG(g0, g1);
+			for (BooleanOperation op : ops) {
+				final Geometry result = overlay.getResult(op.opCode);
+				result.setUserData(g0.getUserData()); // preserve shape style (if any)
+				results.put(op, toPShape(result));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Computes a boolean operation on two shapes in fixed precision, snap-rounding
+	 * vertices to a grid having cells of the given size.
+	 * <p>
+	 * Fixed-precision overlay is robust: it never fails with topology errors on
+	 * noisy or near-degenerate inputs (such as shapes having nearly coincident
+	 * edges), and avoids the cost of handling such inputs in floating precision.
+	 * Output coordinates lie on the grid, so the grid should be finer than the
+	 * smallest feature of interest. To compute every boolean operation of this
+	 * class in fixed precision, set {@link #PRECISION_GRID_SIZE} instead.
+	 * 
+	 * @param a         The first shape.
+	 * @param b         The second shape.
+	 * @param operation the operation to compute
+	 * @param gridSize  size of the precision grid cells (such as 0.001). A value
+	 *                  of 0 computes the operation in floating precision.
+	 * @return the result of the operation, having the style of shape a
+	 * @since 1.5.0
+	 */
+	public static PShape overlay(final PShape a, final PShape b, final BooleanOperation operation, final double gridSize) {
+		final Geometry g0 = fromPShape(a);
+		final Geometry result = overlayNG(g0, fromPShape(b), operation.opCode, gridSize);
+		result.setUserData(g0.getUserData()); // preserve shape style (if any)
 		return toPShape(result);
 	}
 
+	/**
+	 * Creates an accumulator for applying many successive unions and differences to
+	 * a shape (such as painting and erasing with a brush shape). Each operation
+	 * overlays only the parts of the accumulated shape near its input, so its cost
+	 * does not grow with the size of the accumulated shape, unlike repeated calls
+	 * to {@link #union(PShape, PShape) union(canvas, brush)}.
+	 * 
+	 * @param tileSize side length of the square buckets into which the accumulated
+	 *                 shape is tiled. Tiles should be a few times larger than a
+	 *                 typical brush shape.
+	 * @return a new, empty accumulator
+	 * @since 1.5.0
+	 */
+	public static BooleanAccumulator accumulator(double tileSize) {
+		return new BooleanAccumulator(tileSize);
+	}
+
 	/**
 	 * Calculates the complement (or inverse) of the provided shape within a
 	 * rectangular boundary of specified width and height.
@@ -372,7 +718,200 @@ public final class PGS_ShapeBoolean {
 		shapeFactory.setNumPoints(4);
 		shapeFactory.setWidth(width);
 		shapeFactory.setHeight(height);
-		return toPShape(shapeFactory.createRectangle().difference(fromPShape(shape)));
+		final Geometry rectangle = shapeFactory.createRectangle();
+		if (PRECISION_GRID_SIZE > 0) {
+			return toPShape(overlayNG(rectangle, fromPShape(shape), OverlayNG.DIFFERENCE));
+		}
+		return toPShape(OverlayNGRobust.overlay(rectangle, fromPShape(shape), OverlayNG.DIFFERENCE));
+	}
+
+	/**
+	 * Indexes the envelopes of the polygonal parts of a geometry, for
+	 * {@link #mayIntersect(PShape, STRtree)}.
+	 */
+	private static STRtree indexParts(final Geometry g) {
+		final STRtree tree = new STRtree();
+		for (int i = 0; i < g.getNumGeometries(); i++) {
+			final Geometry part = g.getGeometryN(i);
+			if (!part.isEmpty()) {
+				tree.insert(part.getEnvelopeInternal(), part);
+			}
+		}
+		tree.build();
+		return tree;
+	}
+
+	/**
+	 * Determines (without converting the shape) whether the envelope of a shape's
+	 * vertices intersects the envelope of any of the indexed parts. Shapes whose
+	 * envelope can't be determined from their vertices alone (primitives, or
+	 * shapes having an affine transformation) are assumed to intersect.
+	 */
+	private static boolean mayIntersect(final PShape shape, final STRtree parts) {
+		final int n = shape.getVertexCount();
+		if (n == 0 || shape.getFamily() == PShape.PRIMITIVE || PGS.getPShapeMatrix(shape) != null) {
+			return true;
+		}
+		// control points of any bezier vertices are included, so the envelope is conservative
+		final Envelope envelope = new Envelope();
+		for (int i = 0; i < n; i++) {
+			envelope.expandToInclude(shape.getVertexX(i), shape.getVertexY(i));
+		}
+		return !parts.query(envelope).isEmpty();
+	}
+
+	/**
+	 * The overlapping part of two faces, and the indices of the faces.
+	 */
+	private static class FaceOverlap {
+
+		final int faceA, faceB;
+		final Geometry overlap;
+
+		FaceOverlap(int faceA, int faceB, Geometry overlap) {
+			this.faceA = faceA;
+			this.faceB = faceB;
+			this.overlap = overlap;
+		}
+	}
+
+	/**
+	 * Unions the geometries of a (sub)tree of an STR-tree, where each node is a
+	 * list of child nodes or of geometries (leaf items). The subtrees of a node are
+	 * unioned in parallel, and their results then unioned together.
+	 */
+	private static class UnionTask extends RecursiveTask<Geometry> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<?> node;
+		private final double minSliverArea;
+
+		UnionTask(List<?> node, double minSliverArea) {
+			this.node = node;
+			this.minSliverArea = minSliverArea;
+		}
+
+		@Override
+		protected Geometry compute() {
+			final List<Geometry> parts = new ArrayList<>(node.size());
+			final List<UnionTask> subtasks = new ArrayList<>();
+			for (Object child : node) {
+				if (child instanceof List) {
+					subtasks.add(new UnionTask((List<?>) child, minSliverArea));
+				} else {
+					parts.add((Geometry) child);
+				}
+			}
+			invokeAll(subtasks);
+			for (UnionTask subtask : subtasks) {
+				final Geometry g = subtask.join();
+				if (g != null) {
+					parts.add(g);
+				}
+			}
+
+			if (parts.isEmpty()) {
+				return null;
+			}
+			Geometry union = unaryUnion(parts);
+			if (minSliverArea > 0) {
+				union = removeSlivers(union, minSliverArea);
+			}
+			return union;
+		}
+	}
+
+	/**
+	 * Removes polygons and holes having an area smaller than the given area from a
+	 * (polygonal) geometry.
+	 */
+	private static Geometry removeSlivers(final Geometry g, final double minArea) {
+		final GeometryFactory factory = g.getFactory();
+		final List<Polygon> kept = new ArrayList<>();
+		for (Object o : PolygonExtracter.getPolygons(g)) {
+			final Polygon p = (Polygon) o;
+			if (p.getArea() < minArea) {
+				continue;
+			}
+			final List<LinearRing> holes = new ArrayList<>(p.getNumInteriorRing());
+			for (int i = 0; i < p.getNumInteriorRing(); i++) {
+				final LinearRing hole = p.getInteriorRingN(i);
+				if (Math.abs(Area.ofRing(hole.getCoordinateSequence())) >= minArea) {
+					holes.add(hole);
+				}
+			}
+			kept.add(holes.size() == p.getNumInteriorRing() ? p
+					: factory.createPolygon(p.getExteriorRing(), holes.toArray(new LinearRing[0])));
+		}
+		return factory.buildGeometry(kept);
+	}
+
+	/**
+	 * Overlays two geometries, giving the result the style of the first geometry
+	 * (if any).
+	 * 
+	 * @param opCode an {@link OverlayNG} operation code
+	 */
+	private static Geometry overlay(final Geometry a, final Geometry b, final int opCode) {
+		Geometry result = overlayNG(a, b, opCode);
+		result.setUserData(a.getUserData()); // preserve shape style (if any)
+		return result;
+	}
+
+	/**
+	 * Overlays two geometries, in fixed precision if {@link #PRECISION_GRID_SIZE}
+	 * is set.
+	 */
+	private static Geometry overlayNG(final Geometry a, final Geometry b, final int opCode) {
+		return overlayNG(a, b, opCode, PRECISION_GRID_SIZE);
+	}
+
+	/**
+	 * Overlays two geometries, in fixed precision (snap-rounded to a grid of the
+	 * given size) if the grid size is positive.
+	 */
+	private static Geometry overlayNG(final Geometry a, final Geometry b, final int opCode, final double gridSize) {
+		if (gridSize > 0) {
+			final PrecisionModel pm = new PrecisionModel(1 / gridSize);
+			return OverlayNG.overlay(a, b, opCode, pm, new SnapRoundingNoder(pm));
+		}
+		return OverlayNG.overlay(a, b, opCode);
+	}
+
+	/**
+	 * Snaps the vertices of a geometry to the {@link #PRECISION_GRID_SIZE} grid (if
+	 * set), as the fixed-precision overlays do, keeping its style.
+	 */
+	private static Geometry snapToGrid(final Geometry g) {
+		if (PRECISION_GRID_SIZE <= 0) {
+			return g;
+		}
+		final Geometry snapped = GeometryPrecisionReducer.reduce(g, new PrecisionModel(1 / PRECISION_GRID_SIZE));
+		snapped.setUserData(g.getUserData());
+		return snapped;
+	}
+
+	/**
+	 * Copies a mesh face that passes through a mesh operation unchanged (snapped to
+	 * the {@link #PRECISION_GRID_SIZE} grid, if set).
+	 */
+	private static PShape passThrough(final PShape face) {
+		if (PRECISION_GRID_SIZE > 0) {
+			return toPShape(snapToGrid(fromPShape(face)));
+		}
+		return PGS_Conversion.copy(face);
+	}
+
+	/**
+	 * Unions a (non-empty) collection of geometries, in fixed precision if
+	 * {@link #PRECISION_GRID_SIZE} is set.
+	 */
+	private static Geometry unaryUnion(final Collection<Geometry> geometries) {
+		if (PRECISION_GRID_SIZE > 0) {
+			return UnaryUnionNG.union(geometries, new PrecisionModel(1 / PRECISION_GRID_SIZE));
+		}
+		return UnaryUnionOp.union(geometries);
 	}
 
 }
@@ -3,13 +3,20 @@ package micycle.pgs;
 import static micycle.pgs.PGS_Conversion.fromPShape;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import javax.vecmath.Point3d;
 import javax.vecmath.Point4d;
 
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleWeightedGraph;
 import org.locationtech.jts.algorithm.Angle;
 import org.locationtech.jts.algorithm.MinimumBoundingCircle;
 import org.locationtech.jts.algorithm.MinimumDiameter;
@@ -25,12 +32,18 @@ import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.Location;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
 import org.locationtech.jts.geom.util.PolygonExtracter;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.locationtech.jts.operation.overlayng.OverlayNG;
 import org.locationtech.jts.operation.valid.IsValidOp;
 
 import micycle.pgs.commons.EllipticFourierDesc;
 import micycle.pgs.commons.GeometricMedian;
-import micycle.trapmap.TrapMap;
+import micycle.pgs.commons.MeshLocator;
+import micycle.pgs.commons.PreparedPShape;
+import micycle.pgs.commons.ShapeHandle;
 import processing.core.PConstants;
 import processing.core.PShape;
 import processing.core.PVector;
@@ -43,9 +56,36 @@ import processing.core.PVector;
  */
 public final class PGS_ShapePredicates {
 
+	/**
+	 * The minimum number of query points at which the batch point-in-shape methods
+	 * (those taking primitive coordinate arrays) classify points concurrently,
+	 * rather than sequentially. Default = 20000.
+	 * 
+	 * @since 1.5.0
+	 */
+	public static int PARALLEL_POINT_THRESHOLD = 20000;
+
+	/** Number of points classified per task by the batch point-in-shape methods. */
+	private static final int POINT_CHUNK_SIZE = 4096;
+
 	private PGS_ShapePredicates() {
 	}
 
+	/**
+	 * Prepares a shape for fast repeated queries. The returned object converts the
+	 * shape only once and retains spatial indexes that accelerate predicate,
+	 * point-in-shape and distance queries against the shape. Prefer this to the
+	 * stateless methods of this class when the same shape is queried many times
+	 * (such as hit-testing every frame).
+	 * 
+	 * @param shape the shape to prepare
+	 * @return a prepared shape
+	 * @since 1.5.0
+	 */
+	public static PreparedPShape prepare(PShape shape) {
+		return new PreparedPShape(shape);
+	}
+
 	/**
 	 * Determines whether the outer shape fully contains the inner shape. A shape is
 	 * considered to contain itself. Points of the inner shape that lie on the
@@ -59,6 +99,20 @@ public final class PGS_ShapePredicates {
 		return fromPShape(outer).covers(fromPShape(inner));
 	}
 
+	/**
+	 * Determines whether the outer shape fully contains the inner shape, operating
+	 * on the geometry form of the handles.
+	 * 
+	 * @param outer
+	 * @param inner
+	 * @return
+	 * @since 1.5.0
+	 * @see #contains(PShape, PShape)
+	 */
+	public static boolean contains(ShapeHandle outer, ShapeHandle inner) {
+		return outer.getGeometry().covers(inner.getGeometry());
+	}
+
 	/**
 	 * Determines whether a shape contains a point. Points that lie on the boundary
 	 * of the shape are considered to be contained.
@@ -73,6 +127,20 @@ public final class PGS_ShapePredicates {
 		return fromPShape(shape).covers(PGS.pointFromPVector(point));
 	}
 
+	/**
+	 * Determines whether the shape of a handle contains a point, operating on the
+	 * geometry form of the handle.
+	 * 
+	 * @param shape
+	 * @param point
+	 * @return
+	 * @since 1.5.0
+	 * @see #containsPoint(PShape, PVector)
+	 */
+	public static boolean containsPoint(ShapeHandle shape, PVector point) {
+		return shape.getGeometry().covers(PGS.pointFromPVector(point));
+	}
+
 	/**
 	 * Determines whether a shape contains every point from a list of points. It is
 	 * faster to use method rather than than calling
@@ -114,6 +182,149 @@ public final class PGS_ShapePredicates {
 		return bools;
 	}
 
+	/**
+	 * Measures for each point in a batch of points whether it is contained in the
+	 * given shape. Points that lie on the boundary of the shape are considered to
+	 * be contained.
+	 * <p>
+	 * This method is intended for classifying very many points at once (such as
+	 * particle positions every frame): points are given as a primitive coordinate
+	 * array, and large batches are classified concurrently (see
+	 * {@link #PARALLEL_POINT_THRESHOLD}).
+	 * 
+	 * @param shape  a polygonal shape
+	 * @param coords interleaved x,y coordinates of the query points
+	 * @return an array containing, for each query point, whether the shape contains
+	 *         it
+	 * @since 1.5.0
+	 * @see #containsPoints(PreparedPShape, double[], boolean)
+	 */
+	public static boolean[] containsPoints(PShape shape, double[] coords) {
+		return containsPoints(prepare(shape), coords, false);
+	}
+
+	/**
+	 * Measures for each point in a batch of points whether it is contained in the
+	 * given shape. Points that lie on the boundary of the shape are considered to
+	 * be contained.
+	 * 
+	 * @param shape  a polygonal shape
+	 * @param coords interleaved x,y coordinates of the query points
+	 * @return an array containing, for each query point, whether the shape contains
+	 *         it
+	 * @since 1.5.0
+	 * @see #containsPoints(PreparedPShape, float[], boolean)
+	 */
+	public static boolean[] containsPoints(PShape shape, float[] coords) {
+		return containsPoints(prepare(shape), coords, false);
+	}
+
+	/**
+	 * Measures for each point in a batch of points whether it is contained in a
+	 * prepared shape. Points that lie on the boundary of the shape are considered
+	 * to be contained.
+	 * <p>
+	 * Since the shape is prepared (and its point index built) only once, this is
+	 * the fastest way to classify points against the same shape repeatedly. Large
+	 * batches are classified concurrently (see {@link #PARALLEL_POINT_THRESHOLD}).
+	 * Optionally, points can be classified in the order of their position along a
+	 * Hilbert curve: consecutive queries then visit nearby parts of the shape's
+	 * index, which improves cache locality when points are ordered randomly and
+	 * the shape is large.
+	 * 
+	 * @param shape        a prepared shape
+	 * @param coords       interleaved x,y coordinates of the query points
+	 * @param hilbertOrder whether to classify points in Hilbert curve order. The
+	 *                     output order is always the order of the input points.
+	 * @return an array containing, for each query point, whether the shape contains
+	 *         it
+	 * @since 1.5.0
+	 */
+	public static boolean[] containsPoints(PreparedPShape shape, double[] coords, boolean hilbertOrder) {
+		return containsPoints(shape, coords.length / 2, i -> coords[i], hilbertOrder);
+	}
+
+	/**
+	 * Measures for each point in a batch of points whether it is contained in a
+	 * prepared shape. Points that lie on the boundary of the shape are considered
+	 * to be contained.
+	 * 
+	 * @param shape        a prepared shape
+	 * @param coords       interleaved x,y coordinates of the query points
+	 * @param hilbertOrder whether to classify points in Hilbert curve order (see
+	 *                     {@link #containsPoints(PreparedPShape, double[], boolean)})
+	 * @return an array containing, for each query point, whether the shape contains
+	 *         it
+	 * @since 1.5.0
+	 */
+	public static boolean[] containsPoints(PreparedPShape shape, float[] coords, boolean hilbertOrder) {
+		return containsPoints(shape, coords.length / 2, i -> coords[i], hilbertOrder);
+	}
+
+	/**
+	 * @param n     number of points
+	 * @param coord accessor for interleaved x,y coordinates
+	 */
+	private static boolean[] containsPoints(PreparedPShape shape, int n, IntToDoubleFunction coord, boolean hilbertOrder) {
+		final boolean[] contained = new boolean[n];
+		final int[] order = hilbertOrder ? hilbertOrder(n, coord) : null;
+
+		final IntConsumer classifyChunk = chunk -> {
+			final int end = Math.min(n, (chunk + 1) * POINT_CHUNK_SIZE);
+			for (int j = chunk * POINT_CHUNK_SIZE; j < end; j++) {
+				final int i = order == null ? j : order[j];
+				contained[i] = shape.containsPoint(coord.applyAsDouble(2 * i), coord.applyAsDouble(2 * i + 1));
+			}
+		};
+
+		final int chunks = (n + POINT_CHUNK_SIZE - 1) / POINT_CHUNK_SIZE;
+		if (n >= PARALLEL_POINT_THRESHOLD) {
+			shape.containsPoint(0, 0); // build the point index before sharing it
+			IntStream.range(0, chunks).parallel().forEach(classifyChunk);
+		} else {
+			for (int chunk = 0; chunk < chunks; chunk++) {
+				classifyChunk.accept(chunk);
+			}
+		}
+		return contained;
+	}
+
+	/**
+	 * Computes the order of points along a Hilbert curve spanning their bounds.
+	 * 
+	 * @return point indices, sorted by Hilbert index
+	 */
+	private static int[] hilbertOrder(int n, IntToDoubleFunction coord) {
+		double xMin = Double.POSITIVE_INFINITY, yMin = Double.POSITIVE_INFINITY;
+		double xMax = Double.NEGATIVE_INFINITY, yMax = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < n; i++) {
+			final double x = coord.applyAsDouble(2 * i);
+			final double y = coord.applyAsDouble(2 * i + 1);
+			xMin = Math.min(xMin, x);
+			xMax = Math.max(xMax, x);
+			yMin = Math.min(yMin, y);
+			yMax = Math.max(yMax, y);
+		}
+
+		final int order = 15; // hilbert index fits in 30 bits
+		final double hScale = (1 << order) - 1.0;
+		final double xScale = xMax > xMin ? hScale / (xMax - xMin) : 0;
+		final double yScale = yMax > yMin ? hScale / (yMax - yMin) : 0;
+		final long[] keys = new long[n]; // hilbert index in high bits; point index in low bits
+		for (int i = 0; i < n; i++) {
+			final int ix = (int) ((coord.applyAsDouble(2 * i) - xMin) * xScale);
+			final int iy = (int) ((coord.applyAsDouble(2 * i + 1) - yMin) * yScale);
+			keys[i] = ((long) PGS_PointSet.xy2Hilbert(ix, iy, order) << 32) | i;
+		}
+		Arrays.parallelSort(keys);
+
+		final int[] indices = new int[n];
+		for (int i = 0; i < n; i++) {
+			indices[i] = (int) keys[i];
+		}
+		return indices;
+	}
+
 	/**
 	 * Tests for each point in the input whether it is contained in/inside the given
 	 * shape; if it is, then the point is included in the output list. This method
@@ -143,13 +354,16 @@ public final class PGS_ShapePredicates {
 	 * a GROUP shape input (a shape that has non-overlapping children).
 	 * <p>
 	 * This method locates the containing shape in log(n) time (after some
-	 * pre-processing overhead).
+	 * pre-processing overhead). The pre-processing is repeated on every call, so
+	 * when querying the same shape many times, build a
+	 * {@link #meshLocator(PShape) meshLocator()} once and query that instead.
 	 * 
 	 * @param groupShape a GROUP shape
 	 * @param point      the query point
 	 * @return the child shape that contains the query point, or null if no child
 	 *         shape contains the point
 	 * @since 1.3.0
+	 * @see #meshLocator(PShape)
 	 */
 	public static PShape findContainingShape(PShape groupShape, PVector point) {
 		if (groupShape.getKind() != PConstants.GROUP) { // handle non-mesh shape
@@ -160,22 +374,25 @@ public final class PGS_ShapePredicates {
 			}
 		}
 
-		TrapMap map;
-		try {
-			map = new TrapMap(PGS_Conversion.getChildren(groupShape));
-		} catch (Exception e) {
-			/*
-			 * Handle error thrown by TrapMap on degenerate/strange inputs. Generally
-			 * shearing will fix the problem (ideally this would be done within TrapMap).
-			 */
-			try {
-				map = new TrapMap(PGS_Conversion.getChildren(PGS_Transformation.shear(groupShape, .00001, 0)));
-			} catch (Exception e2) {
-				System.err.println(e.getMessage());
-				return new PShape();
-			}
-		}
-		return map.findContainingPolygon(point.x, point.y);
+		return new MeshLocator(groupShape).locate(point);
+	}
+
+	/**
+	 * Builds a reusable point-location index over the children of a GROUP shape (a
+	 * shape that has non-overlapping children, such as a mesh or Voronoi diagram).
+	 * <p>
+	 * The locator is built once, and then finds the child shape (or child index)
+	 * containing a query point in log(n) time, making it suited to picking cells of
+	 * a large mesh under the mouse every frame. Points can be queried singly or in
+	 * batches.
+	 * 
+	 * @param groupShape a GROUP shape
+	 * @return a point locator for the shape's children
+	 * @since 1.5.0
+	 * @see #findContainingShape(PShape, PVector)
+	 */
+	public static MeshLocator meshLocator(PShape groupShape) {
+		return new MeshLocator(groupShape);
 	}
 
 	/**
@@ -203,6 +420,88 @@ public final class PGS_ShapePredicates {
 		return fromPShape(a).intersects(fromPShape(b));
 	}
 
+	/**
+	 * Finds every pair of intersecting shapes among a collection of shapes,
+	 * returning them as a graph (an intersection graph).
+	 * <p>
+	 * Shapes are indexed by an STR-tree, so exact intersection tests are performed
+	 * (in parallel) only for pairs of shapes whose envelopes overlap. The cost
+	 * therefore scales with the number of actual intersections, rather than with
+	 * the square of the number of shapes as when calling
+	 * {@link #intersect(PShape, PShape) intersect()} for every pair.
+	 * 
+	 * @param shapes      a collection of shapes
+	 * @param overlapArea whether to compute the area of overlap of each
+	 *                    intersecting pair, as the weight of the edge between them
+	 *                    (shapes that only touch have an overlap area of 0). If
+	 *                    false, every edge has a weight of 1.
+	 * @return an undirected graph having a vertex for every input shape, and an
+	 *         edge between every pair of shapes that intersect (having at least one
+	 *         point in common)
+	 * @since 1.5.0
+	 */
+	public static SimpleWeightedGraph<PShape, DefaultWeightedEdge> intersectionGraph(Collection<PShape> shapes, boolean overlapArea) {
+		final List<PShape> shapeList = new ArrayList<>(shapes);
+		final List<Geometry> geometries = shapeList.parallelStream().map(PGS_Conversion::fromPShape).collect(Collectors.toList());
+
+		final STRtree tree = new STRtree();
+		for (int i = 0; i < geometries.size(); i++) {
+			tree.insert(geometries.get(i).getEnvelopeInternal(), i);
+		}
+		tree.build();
+
+		// for each shape, the intersecting shapes having a greater index (and overlap areas)
+		final List<double[]> pairs = IntStream.range(0, geometries.size()).parallel().mapToObj(i -> {
+			final Geometry g = geometries.get(i);
+			@SuppressWarnings("unchecked")
+			final List<Integer> candidates = tree.query(g.getEnvelopeInternal());
+			final List<double[]> shapePairs = new ArrayList<>();
+			PreparedGeometry prepared = null;
+			for (int j : candidates) {
+				if (j <= i) {
+					continue; // test each pair once
+				}
+				if (prepared == null) {
+					prepared = PreparedGeometryFactory.prepare(g);
+				}
+				final Geometry other = geometries.get(j);
+				if (prepared.intersects(other)) {
+					final double weight = overlapArea ? OverlayNG.overlay(g, other, OverlayNG.INTERSECTION).getArea() : 1;
+					shapePairs.add(new double[] { i, j, weight });
+				}
+			}
+			return shapePairs;
+		}).flatMap(List::stream).collect(Collectors.toList());
+
+		final SimpleWeightedGraph<PShape, DefaultWeightedEdge> graph = new SimpleWeightedGraph<>(DefaultWeightedEdge.class);
+		shapeList.forEach(graph::addVertex);
+		for (double[] pair : pairs) {
+			final PShape a = shapeList.get((int) pair[0]);
+			final PShape b = shapeList.get((int) pair[1]);
+			if (a != b) { // the same shape may appear in the input more than once
+				final DefaultWeightedEdge edge = graph.addEdge(a, b);
+				if (edge != null) {
+					graph.setEdgeWeight(edge, pair[2]);
+				}
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Determines whether the shapes of two handles intersect/overlap, operating on
+	 * the geometry form of the handles.
+	 * 
+	 * @param a
+	 * @param b
+	 * @return
+	 * @since 1.5.0
+	 * @see #intersect(PShape, PShape)
+	 */
+	public static boolean intersect(ShapeHandle a, ShapeHandle b) {
+		return a.getGeometry().intersects(b.getGeometry());
+	}
+
 	/**
 	 * Determines whether the have at least one point in common, but where their
 	 * interiors do not intersect.
@@ -226,6 +525,19 @@ public final class PGS_ShapePredicates {
 		return fromPShape(a).distance(fromPShape(b));
 	}
 
+	/**
+	 * Computes the minimum distance between the shapes of two handles.
+	 * 
+	 * @param a shape A
+	 * @param b shape B
+	 * @return
+	 * @since 1.5.0
+	 * @see #distance(PShape, PShape)
+	 */
+	public static double distance(ShapeHandle a, ShapeHandle b) {
+		return a.getGeometry().distance(b.getGeometry());
+	}
+
 	/**
 	 * Computes the area of the given shape.
 	 * 
@@ -236,6 +548,18 @@ public final class PGS_ShapePredicates {
 		return fromPShape(shape).getArea();
 	}
 
+	/**
+	 * Computes the area of the shape of a handle.
+	 * 
+	 * @param shape
+	 * @return
+	 * @since 1.5.0
+	 * @see #area(PShape)
+	 */
+	public static double area(ShapeHandle shape) {
+		return shape.getGeometry().getArea();
+	}
+
 	/**
 	 * Computes the ratio (density) of the shape's area compared to the area of it's
 	 * envelope.
@@ -13,6 +13,7 @@ import org.locationtech.jts.geom.util.AffineTransformation;
 import org.locationtech.jts.operation.distance.IndexedFacetDistance;
 
 import micycle.pgs.commons.ProcrustesAlignment;
+import micycle.pgs.commons.ShapeHandle;
 import processing.core.PShape;
 import processing.core.PVector;
 
@@ -41,10 +42,27 @@ public final class PGS_Transformation {
 	 * @return
 	 */
 	public static PShape scale(PShape shape, double scale) {
-		Geometry g = fromPShape(shape);
+		return toPShape(scale(fromPShape(shape), scale));
+	}
+
+	/**
+	 * Scales the dimensions of the shape of a handle by a scaling factor relative
+	 * to its center point, without converting the result into a PShape.
+	 * 
+	 * @param shape
+	 * @param scale X and Y axis scale factor
+	 * @return a handle of the scaled shape
+	 * @since 1.5.0
+	 * @see #scale(PShape, double)
+	 */
+	public static ShapeHandle scale(ShapeHandle shape, double scale) {
+		return ShapeHandle.of(scale(shape.getGeometry(), scale));
+	}
+
+	private static Geometry scale(Geometry g, double scale) {
 		Coordinate c = g.getCentroid().getCoordinate();
 		AffineTransformation t = AffineTransformation.scaleInstance(scale, scale, c.x, c.y);
-		return toPShape(t.transform(g));
+		return t.transform(g);
 	}
 
 	/**
@@ -274,6 +292,22 @@ public final class PGS_Transformation {
 		return toPShape(t.transform(g));
 	}
 
+	/**
+	 * Translates the shape of a handle by the given coordinates, without converting
+	 * the result into a PShape.
+	 * 
+	 * @param shape shape to translate
+	 * @param x     the value to translate by in the x direction
+	 * @param y     the value to translate by in the y direction
+	 * @return a handle of the translated shape
+	 * @since 1.5.0
+	 * @see #translate(PShape, double, double)
+	 */
+	public static ShapeHandle translate(ShapeHandle shape, double x, double y) {
+		AffineTransformation t = AffineTransformation.translationInstance(x, y);
+		return ShapeHandle.of(t.transform(shape.getGeometry()));
+	}
+
 	/**
 	 * Translates a shape such that its <b>centroid</b> is equivalent to the given
 	 * coordinates.
@@ -504,6 +538,22 @@ public final class PGS_Transformation {
 		return toPShape(t.transform(g));
 	}
 
+	/**
+	 * Rotates the shape of a handle around a given point, without converting the
+	 * result into a PShape.
+	 * 
+	 * @param shape the shape to tranform/rotate
+	 * @param point rotation point
+	 * @param angle the rotation angle, in radians
+	 * @return a handle of the rotated shape
+	 * @since 1.5.0
+	 * @see #rotate(PShape, PVector, double)
+	 */
+	public static ShapeHandle rotate(ShapeHandle shape, PVector point, double angle) {
+		AffineTransformation t = AffineTransformation.rotationInstance(angle, point.x, point.y);
+		return ShapeHandle.of(t.transform(shape.getGeometry()));
+	}
+
 	/**
 	 * Rotates a shape around its centroid.
 	 * 
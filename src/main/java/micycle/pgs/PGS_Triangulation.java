@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -34,6 +35,7 @@ import org.tinfour.utils.TriangleCollector;
 
 import micycle.pgs.PGS.LinearRingIterator;
 import micycle.pgs.color.Colors;
+import micycle.pgs.commons.FlatMesh;
 import micycle.pgs.commons.Nullable;
 import micycle.pgs.commons.PEdge;
 import processing.core.PConstants;
@@ -467,6 +469,49 @@ public final class PGS_Triangulation {
 		return out;
 	}
 
+	/**
+	 * Converts a triangulated mesh object into a flat (array-based) mesh. Unlike
+	 * {@link #toPShape(IIncrementalTin)}, no PShape is created per triangle, and
+	 * triangles share the indices of the triangulation vertices they have in
+	 * common.
+	 * 
+	 * @param triangulation the IIncrementalTin object to convert
+	 * @return a flat mesh, where each face is one triangle
+	 * @since 1.5.0
+	 */
+	public static FlatMesh toFlatMesh(IIncrementalTin triangulation) {
+		final Map<Vertex, Integer> vertexIds = new IdentityHashMap<>();
+		final List<int[]> triangles = new ArrayList<>();
+
+		final Consumer<Vertex[]> triangleVertexConsumer = t -> {
+			final int[] triangle = new int[3];
+			for (int i = 0; i < 3; i++) {
+				triangle[i] = vertexIds.computeIfAbsent(t[i], v -> vertexIds.size());
+			}
+			triangles.add(triangle);
+		};
+
+		if (!triangulation.getConstraints().isEmpty()) {
+			TriangleCollector.visitTrianglesConstrained(triangulation, triangleVertexConsumer);
+		} else {
+			TriangleCollector.visitTriangles(triangulation, triangleVertexConsumer);
+		}
+
+		final double[] coords = new double[vertexIds.size() * 2];
+		vertexIds.forEach((v, i) -> {
+			coords[2 * i] = v.x;
+			coords[2 * i + 1] = v.y;
+		});
+		final int[] faceOffsets = new int[triangles.size() + 1];
+		final int[] vertexIndices = new int[triangles.size() * 3];
+		for (int f = 0; f < triangles.size(); f++) {
+			faceOffsets[f + 1] = 3 * (f + 1);
+			System.arraycopy(triangles.get(f), 0, vertexIndices, 3 * f, 3);
+		}
+
+		return new FlatMesh(coords, faceOffsets, vertexIndices, null);
+	}
+
 	/**
 	 * Finds the graph equivalent to a triangulation. Graph vertices are
 	 * triangulation vertices; graph edges are triangulation edges.
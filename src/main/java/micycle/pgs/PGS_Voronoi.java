@@ -7,6 +7,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.locationtech.jts.densify.Densifier;
@@ -15,7 +19,10 @@ import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.Polygon;
 import org.locationtech.jts.geom.Polygonal;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
 import org.locationtech.jts.operation.overlayng.OverlayNG;
+import org.locationtech.jts.operation.overlayng.RingClipper;
 import org.tinfour.common.IQuadEdge;
 import org.tinfour.common.Vertex;
 import org.tinfour.standard.IncrementalTin;
@@ -25,7 +32,12 @@ import org.tinfour.voronoi.BoundedVoronoiDiagram;
 import org.tinfour.voronoi.ThiessenPolygon;
 
 import micycle.pgs.color.Colors;
+import micycle.pgs.commons.FlatMesh;
+import micycle.pgs.commons.FlatVoronoi;
+import micycle.pgs.commons.LloydRelaxation;
 import micycle.pgs.commons.Nullable;
+import micycle.pgs.commons.PowerDiagram;
+import micycle.pgs.commons.TiledVoronoi;
 import processing.core.PConstants;
 import processing.core.PShape;
 import processing.core.PVector;
@@ -40,6 +52,15 @@ import processing.core.PVector;
 @SuppressWarnings("squid:S3776")
 public final class PGS_Voronoi {
 
+	/**
+	 * Constraint shapes having at least this many vertices are tiled for clipping
+	 * boundary cells (so that cells are overlaid with nearby parts of the shape
+	 * only).
+	 */
+	private static final int MIN_TILED_CLIP_VERTICES = 256;
+	/** Approximate side length of clipping tiles, in (average) cells. */
+	private static final int TILE_CELLS = 16;
+
 	private PGS_Voronoi() {
 	}
 
@@ -208,8 +229,7 @@ public final class PGS_Voronoi {
 		List<Geometry> faces = v.getPolygons().stream().filter(p -> p.getEdges().size() > 1).map(PGS_Voronoi::toPolygon)
 				.collect(Collectors.toList());
 		if (constrain && g instanceof Polygonal) {
-			faces = faces.parallelStream().map(f -> OverlayNG.overlay(f, g, OverlayNG.INTERSECTION)).collect(Collectors.toList());
-			faces.removeIf(f -> f.getNumPoints() == 0); // (odd, artifacts of intersection?)
+			faces = clipCells(faces, g);
 		}
 
 		PShape facesShape = PGS_Conversion.toPShape(faces);
@@ -281,6 +301,149 @@ public final class PGS_Voronoi {
 		return innerVoronoi(PGS_Conversion.toPointsPShape(points), false, bounds, null, 0);
 	}
 
+	/**
+	 * Generates a bounded Voronoi diagram for a set of points given as a packed
+	 * coordinate array, writing the cells directly into a flat mesh (without
+	 * creating any intermediate per-cell objects).
+	 * <p>
+	 * When building the diagram of moving points repeatedly (such as a particle
+	 * simulation, every frame), create a {@link FlatVoronoi} once and call its
+	 * <code>build()</code> method each frame instead, which reuses its
+	 * triangulation between builds.
+	 *
+	 * @param points interleaved x,y coordinates of the Voronoi sites
+	 * @param bounds an array of the form [minX, minY, maxX, maxY] defining the
+	 *               bounds of the diagram. Points outside the bounds are ignored.
+	 * @return the diagram: its cells as faces of a conforming {@link FlatMesh},
+	 *         along with the index of the site of each face
+	 * @since 1.5.0
+	 */
+	public static FlatVoronoi.Diagram flatVoronoi(float[] points, double[] bounds) {
+		return new FlatVoronoi(bounds).build(points);
+	}
+
+	/**
+	 * Generates a bounded Voronoi diagram for a set of points given as a packed
+	 * coordinate array, writing the cells directly into a flat mesh.
+	 *
+	 * @param points interleaved x,y coordinates of the Voronoi sites
+	 * @param bounds an array of the form [minX, minY, maxX, maxY] defining the
+	 *               bounds of the diagram. Points outside the bounds are ignored.
+	 * @return the diagram: its cells as faces of a conforming {@link FlatMesh},
+	 *         along with the index of the site of each face
+	 * @see #flatVoronoi(float[], double[])
+	 * @since 1.5.0
+	 */
+	public static FlatVoronoi.Diagram flatVoronoi(double[] points, double[] bounds) {
+		return new FlatVoronoi(bounds).build(points);
+	}
+
+	/**
+	 * Prepares a tiled Voronoi diagram of a (very large) set of points, which is
+	 * built tile by tile: each tile's diagram is built (in parallel) from the
+	 * points within the tile and a halo margin around it, keeping only the cells
+	 * of the tile's own points. Finished cells are streamed to a consumer (via
+	 * {@link TiledVoronoi#forEachCell(java.util.function.Consumer) forEachCell()})
+	 * or lazily to a writer (via {@link TiledVoronoi#cells() cells()}, such as
+	 * into {@link PGS_Conversion#toWKB(Iterable, java.io.OutputStream) toWKB()}),
+	 * so the diagram as a whole is never held in memory.
+	 *
+	 * @param points   interleaved x,y coordinates of the Voronoi sites (the array
+	 *                 is not copied)
+	 * @param bounds   an array of the form [minX, minY, maxX, maxY] defining the
+	 *                 bounds of the diagram. Points outside the bounds are ignored.
+	 * @param tileSize side length of the square tiles into which the bounds are
+	 *                 partitioned
+	 * @return the tiled diagram, whose tiles are built when requested
+	 * @since 1.5.0
+	 */
+	public static TiledVoronoi tiledVoronoi(double[] points, double[] bounds, double tileSize) {
+		return new TiledVoronoi(points, bounds, tileSize);
+	}
+
+	/**
+	 * Generates a bounded power diagram (also known as a Laguerre-Voronoi
+	 * diagram) for a set of weighted points.
+	 * <p>
+	 * Each cell of a power diagram designates the area closest to some point by
+	 * <i>power distance</i>: the squared Euclidean distance minus the weight of the
+	 * point. Heavier points therefore claim larger cells (which needn't contain the
+	 * point itself), and points outweighed by their neighbours may have no cell at
+	 * all. Cells are convex polygons; when points are the centers of circles and
+	 * weights are their squared radii, the cells of touching circles meet at their
+	 * common tangent.
+	 *
+	 * @param points the weighted sites, where the <code>z</code> coordinate of each
+	 *               point is its weight
+	 * @param bounds an array of the form [minX, minY, maxX, maxY] defining the
+	 *               bounds of the diagram. Points outside the bounds are ignored.
+	 * @return a GROUP PShape, where each child shape is a power cell. The
+	 *         <code>.name</code> value of each cell is set to the integer index of
+	 *         its point.
+	 * @since 1.5.0
+	 */
+	public static PShape powerDiagram(Collection<PVector> points, double[] bounds) {
+		final double[] coords = new double[points.size() * 2];
+		final double[] weights = new double[points.size()];
+		int i = 0;
+		for (PVector p : points) {
+			coords[2 * i] = p.x;
+			coords[2 * i + 1] = p.y;
+			weights[i++] = p.z;
+		}
+		final FlatVoronoi.Diagram diagram = powerDiagram(coords, weights, bounds);
+		final PShape cells = diagram.mesh.toPShape();
+		for (int f = 0; f < diagram.sites.length; f++) {
+			cells.getChild(f).setName(Integer.toString(diagram.sites[f]));
+		}
+		return cells;
+	}
+
+	/**
+	 * Generates a bounded power diagram for a set of weighted points given as
+	 * packed arrays, writing the cells directly into a flat mesh.
+	 * <p>
+	 * The diagram is built from a regular (weighted Delaunay) triangulation of the
+	 * points, so scales like an ordinary Voronoi diagram. When building diagrams
+	 * repeatedly, create a {@link PowerDiagram} once and call its
+	 * <code>build()</code> method instead, which reuses its buffers between
+	 * builds.
+	 *
+	 * @param points  interleaved x,y coordinates of the sites
+	 * @param weights the weight of each site
+	 * @param bounds  an array of the form [minX, minY, maxX, maxY] defining the
+	 *                bounds of the diagram. Points outside the bounds are ignored.
+	 * @return the diagram: its cells as faces of a conforming {@link FlatMesh},
+	 *         along with the index of the site of each face
+	 * @see #powerDiagram(Collection, double[])
+	 * @since 1.5.0
+	 */
+	public static FlatVoronoi.Diagram powerDiagram(double[] points, double[] weights, double[] bounds) {
+		return new PowerDiagram(bounds).build(points, weights);
+	}
+
+	/**
+	 * Creates a persistent Lloyd relaxation engine for a set of points, which
+	 * relaxes their bounded Voronoi diagram into a <i>Centroidal Voronoi
+	 * Diagram</i> one iteration at a time (via {@link LloydRelaxation#step()
+	 * step()}).
+	 * <p>
+	 * The engine retains its triangulation and site arrays between iterations and
+	 * moves sites to the true area centroids of their cells, so it is much faster
+	 * than repeated calls to {@link #innerVoronoi(Collection, double[], int)} when
+	 * animating relaxation, or when relaxing many sites for many iterations.
+	 *
+	 * @param points the initial Voronoi sites
+	 * @param bounds an array of the form [minX, minY, maxX, maxY] defining the
+	 *               bounds of the diagram
+	 * @return a relaxation engine, whose diagram is given by
+	 *         {@link LloydRelaxation#getCells() getCells()}
+	 * @since 1.5.0
+	 */
+	public static LloydRelaxation relaxation(Collection<PVector> points, double[] bounds) {
+		return new LloydRelaxation(points, bounds);
+	}
+
 	/**
 	 * Generates a Voronoi diagram for a set of disjoint shapes. In this method each
 	 * voronoi cell designates the area closest to some individual shape.
@@ -433,6 +596,75 @@ public final class PGS_Voronoi {
 		return p;
 	}
 
+	/**
+	 * Clips Voronoi cells to a polygonal shape. Cells are first classified against
+	 * the (prepared) shape: cells lying inside it are kept as they are and cells
+	 * lying outside it are discarded, so that only cells crossing its boundary are
+	 * clipped. Boundary cells are clipped by a ring clipper if the shape is a
+	 * rectangle; otherwise they are overlaid with the part of the shape within
+	 * the grid tile containing the cell (each tile part is computed once, on
+	 * demand), rather than with the whole shape.
+	 *
+	 * @param cells convex Voronoi cells, whose user data is preserved
+	 * @param shape polygonal constraint shape
+	 * @return cells (clipped where necessary) that intersect the shape
+	 */
+	private static List<Geometry> clipCells(List<Geometry> cells, Geometry shape) {
+		final Function<Geometry, Geometry> clipper;
+		final Envelope bounds = shape.getEnvelopeInternal();
+		if (shape.isRectangle()) {
+			clipper = cell -> {
+				final Coordinate[] coords = new RingClipper(bounds).clip(cell.getCoordinates());
+				return coords.length < 4 ? null : shape.getFactory().createPolygon(coords);
+			};
+		} else if (shape.getNumPoints() < MIN_TILED_CLIP_VERTICES) {
+			clipper = cell -> OverlayNG.overlay(cell, shape, OverlayNG.INTERSECTION);
+		} else {
+			final double tileSize = TILE_CELLS * Math.sqrt(bounds.getArea() / cells.size());
+			final Map<Long, Geometry> tiles = new ConcurrentHashMap<>();
+			clipper = cell -> {
+				final Envelope e = cell.getEnvelopeInternal();
+				final long ix = (long) Math.floor(e.getMinX() / tileSize);
+				final long iy = (long) Math.floor(e.getMinY() / tileSize);
+				if (ix != (long) Math.floor(e.getMaxX() / tileSize) || iy != (long) Math.floor(e.getMaxY() / tileSize)) {
+					return OverlayNG.overlay(cell, shape, OverlayNG.INTERSECTION); // cell spans tiles
+				}
+				final long key = (ix << 32) | (iy & 0xffffffffL);
+				Geometry tile = tiles.get(key);
+				if (tile == null) {
+					/*
+					 * Computed outside the map: computeIfAbsent() would lock the
+					 * map bin for the whole overlay, blocking other threads that
+					 * need tiles in the same bin. Threads racing on the same tile
+					 * may both compute it; one result wins.
+					 */
+					final Geometry part = OverlayNG.overlay(shape,
+							shape.getFactory().toGeometry(new Envelope(ix * tileSize, (ix + 1) * tileSize, iy * tileSize, (iy + 1) * tileSize)),
+							OverlayNG.INTERSECTION);
+					final Geometry existing = tiles.putIfAbsent(key, part);
+					tile = existing != null ? existing : part;
+				}
+				return OverlayNG.overlay(cell, tile, OverlayNG.INTERSECTION);
+			};
+		}
+
+		final PreparedGeometry prepared = PreparedGeometryFactory.prepare(shape);
+		return cells.parallelStream().map(cell -> {
+			if (prepared.containsProperly(cell)) {
+				return cell;
+			}
+			if (!prepared.intersects(cell)) {
+				return null;
+			}
+			final Geometry clipped = clipper.apply(cell);
+			if (clipped == null || clipped.getArea() == 0) { // cell touches shape only at its boundary
+				return null;
+			}
+			clipped.setUserData(cell.getUserData());
+			return clipped;
+		}).filter(Objects::nonNull).collect(Collectors.toList());
+	}
+
 	private static PVector computeCentroid(ThiessenPolygon polygon) {
 		double xSum = 0;
 		double ySum = 0;
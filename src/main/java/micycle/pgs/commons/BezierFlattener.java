@@ -0,0 +1,124 @@
+package micycle.pgs.commons;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.locationtech.jts.geom.Coordinate;
+
+/**
+ * Flattens (linearises) bezier curves into polylines by adaptive subdivision.
+ * <p>
+ * A curve is recursively split in half (via de Casteljau's algorithm) until
+ * each piece is flat enough to be replaced by its chord: that is, until the
+ * control points of the piece lie within the maximum deviation of its chord.
+ * Since a bezier curve lies within the convex hull of its control points, the
+ * resulting polyline never deviates from the true curve by more than the
+ * maximum deviation. Unlike sampling at a fixed distance along the curve, the
+ * number of output vertices depends on the curvature of the curve rather than
+ * its length, so long flat curves produce few vertices, while tight bends are
+ * still sampled finely.
+ *
+ * @author Michael Carleton
+ * @since 1.5.0
+ */
+public final class BezierFlattener {
+
+	/** Limits subdivision (to at most 2^MAX_DEPTH segments per curve). */
+	private static final int MAX_DEPTH = 16;
+
+	private BezierFlattener() {
+	}
+
+	/**
+	 * Flattens a cubic bezier curve.
+	 *
+	 * @param x0           start x
+	 * @param y0           start y
+	 * @param x1           first control point x
+	 * @param y1           first control point y
+	 * @param x2           second control point x
+	 * @param y2           second control point y
+	 * @param x3           end x
+	 * @param y3           end y
+	 * @param maxDeviation the maximum distance between the curve and its
+	 *                     flattened polyline. Must be positive.
+	 * @return the vertices of the polyline approximating the curve, including its
+	 *         start and end points
+	 */
+	public static List<Coordinate> flattenCubic(double x0, double y0, double x1, double y1, double x2, double y2, double x3, double y3,
+			double maxDeviation) {
+		final List<Coordinate> out = new ArrayList<>();
+		out.add(new Coordinate(x0, y0));
+		subdivide(x0, y0, x1, y1, x2, y2, x3, y3, maxDeviation * maxDeviation, 0, out);
+		return out;
+	}
+
+	/**
+	 * Flattens a quadratic bezier curve (by flattening its equivalent cubic
+	 * curve).
+	 *
+	 * @param x0           start x
+	 * @param y0           start y
+	 * @param cx           control point x
+	 * @param cy           control point y
+	 * @param x1           end x
+	 * @param y1           end y
+	 * @param maxDeviation the maximum distance between the curve and its
+	 *                     flattened polyline. Must be positive.
+	 * @return the vertices of the polyline approximating the curve, including its
+	 *         start and end points
+	 */
+	public static List<Coordinate> flattenQuadratic(double x0, double y0, double cx, double cy, double x1, double y1, double maxDeviation) {
+		return flattenCubic(x0, y0, x0 + 2 / 3d * (cx - x0), y0 + 2 / 3d * (cy - y0), x1 + 2 / 3d * (cx - x1), y1 + 2 / 3d * (cy - y1), x1,
+				y1, maxDeviation);
+	}
+
+	/**
+	 * Appends the flattened curve to the output, excluding its start point (which
+	 * the caller has already added).
+	 */
+	private static void subdivide(double x0, double y0, double x1, double y1, double x2, double y2, double x3, double y3,
+			double maxDeviationSq, int depth, List<Coordinate> out) {
+		if (depth >= MAX_DEPTH || isFlat(x0, y0, x1, y1, x2, y2, x3, y3, maxDeviationSq)) {
+			out.add(new Coordinate(x3, y3));
+			return;
+		}
+
+		// de Casteljau split at t = 0.5
+		final double x01 = (x0 + x1) / 2, y01 = (y0 + y1) / 2;
+		final double x12 = (x1 + x2) / 2, y12 = (y1 + y2) / 2;
+		final double x23 = (x2 + x3) / 2, y23 = (y2 + y3) / 2;
+		final double x012 = (x01 + x12) / 2, y012 = (y01 + y12) / 2;
+		final double x123 = (x12 + x23) / 2, y123 = (y12 + y23) / 2;
+		final double xm = (x012 + x123) / 2, ym = (y012 + y123) / 2;
+
+		subdivide(x0, y0, x01, y01, x012, y012, xm, ym, maxDeviationSq, depth + 1, out);
+		subdivide(xm, ym, x123, y123, x23, y23, x3, y3, maxDeviationSq, depth + 1, out);
+	}
+
+	/**
+	 * Whether both control points lie within the maximum deviation of the chord
+	 * (the segment between the curve's start and end points).
+	 */
+	private static boolean isFlat(double x0, double y0, double x1, double y1, double x2, double y2, double x3, double y3,
+			double maxDeviationSq) {
+		return segmentDistanceSq(x1, y1, x0, y0, x3, y3) <= maxDeviationSq && segmentDistanceSq(x2, y2, x0, y0, x3, y3) <= maxDeviationSq;
+	}
+
+	/**
+	 * Squared distance from point p to segment ab.
+	 */
+	private static double segmentDistanceSq(double px, double py, double ax, double ay, double bx, double by) {
+		final double dx = bx - ax;
+		final double dy = by - ay;
+		final double lengthSq = dx * dx + dy * dy;
+		double t = 0;
+		if (lengthSq > 0) {
+			t = Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSq));
+		}
+		final double ex = px - (ax + t * dx);
+		final double ey = py - (ay + t * dy);
+		return ex * ex + ey * ey;
+	}
+
+}
@@ -0,0 +1,208 @@
+package micycle.pgs.commons;
+
+import java.util.ArrayList;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygonal;
+import org.locationtech.jts.geom.util.PolygonExtracter;
+import org.locationtech.jts.operation.overlayng.OverlayNG;
+import org.locationtech.jts.operation.union.UnaryUnionOp;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import micycle.pgs.PGS_Conversion;
+import processing.core.PConstants;
+import processing.core.PShape;
+
+/**
+ * Accumulates the result of many successive boolean operations (unions and
+ * differences) against a shape, such as when painting and erasing a canvas
+ * shape with a brush shape, one stroke at a time.
+ * <p>
+ * Calling <code>PGS_ShapeBoolean.union(canvas, brush)</code> for every stroke
+ * costs time proportional to the size of the whole (and growing) canvas. An
+ * accumulator instead stores the canvas tiled into square buckets of a uniform
+ * grid, each bucket holding the part of the canvas within it. Each operation
+ * then overlays the brush with only the buckets that the brush overlaps, so its
+ * cost depends on the size of the brush and of the nearby canvas alone.
+ * <p>
+ * The merged canvas is built on demand by {@link #snapshot()}, and cached until
+ * the next operation. Accumulators are not thread-safe.
+ *
+ * @author Michael Carleton
+ * @since 1.5.0
+ */
+public final class BooleanAccumulator {
+
+	private final double tileSize;
+	/** Canvas part within each (non-empty) bucket, keyed by bucket coordinates. */
+	private final Long2ObjectOpenHashMap<Geometry> tiles = new Long2ObjectOpenHashMap<>();
+	private GeometryFactory factory;
+	private PShape snapshot;
+
+	/**
+	 * Creates an empty accumulator.
+	 *
+	 * @param tileSize side length of the square buckets into which the accumulated
+	 *                 shape is tiled. Tiles should be a few times larger than a
+	 *                 typical brush shape.
+	 */
+	public BooleanAccumulator(double tileSize) {
+		if (!(tileSize > 0)) {
+			throw new IllegalArgumentException("tileSize must be positive.");
+		}
+		this.tileSize = tileSize;
+	}
+
+	/**
+	 * Adds (unions) a shape to the accumulated shape.
+	 *
+	 * @param shape a polygonal shape
+	 * @return this accumulator
+	 */
+	public BooleanAccumulator union(PShape shape) {
+		return union(PGS_Conversion.fromPShape(shape));
+	}
+
+	/**
+	 * Adds (unions) a geometry to the accumulated shape.
+	 *
+	 * @param g a polygonal geometry
+	 * @return this accumulator
+	 */
+	public BooleanAccumulator union(Geometry g) {
+		if (g.isEmpty()) {
+			return this;
+		}
+		if (factory == null) {
+			factory = g.getFactory();
+		}
+		final Envelope e = g.getEnvelopeInternal();
+		for (int ix = cell(e.getMinX()); ix <= cell(e.getMaxX()); ix++) {
+			for (int iy = cell(e.getMinY()); iy <= cell(e.getMaxY()); iy++) {
+				final Geometry part = polygonal(OverlayNG.overlay(g, tileRect(ix, iy), OverlayNG.INTERSECTION));
+				if (part.isEmpty()) {
+					continue;
+				}
+				final long key = key(ix, iy);
+				final Geometry tile = tiles.get(key);
+				tiles.put(key, tile == null ? part : polygonal(OverlayNG.overlay(tile, part, OverlayNG.UNION)));
+			}
+		}
+		snapshot = null;
+		return this;
+	}
+
+	/**
+	 * Removes (subtracts) a shape from the accumulated shape.
+	 *
+	 * @param shape a polygonal shape
+	 * @return this accumulator
+	 */
+	public BooleanAccumulator subtract(PShape shape) {
+		return subtract(PGS_Conversion.fromPShape(shape));
+	}
+
+	/**
+	 * Removes (subtracts) a geometry from the accumulated shape.
+	 *
+	 * @param g a polygonal geometry
+	 * @return this accumulator
+	 */
+	public BooleanAccumulator subtract(Geometry g) {
+		if (g.isEmpty() || tiles.isEmpty()) {
+			return this;
+		}
+		final Envelope e = g.getEnvelopeInternal();
+		for (int ix = cell(e.getMinX()); ix <= cell(e.getMaxX()); ix++) {
+			for (int iy = cell(e.getMinY()); iy <= cell(e.getMaxY()); iy++) {
+				final long key = key(ix, iy);
+				final Geometry tile = tiles.get(key);
+				if (tile == null || !tile.getEnvelopeInternal().intersects(e)) {
+					continue;
+				}
+				final Geometry remaining = polygonal(OverlayNG.overlay(tile, g, OverlayNG.DIFFERENCE));
+				if (remaining.isEmpty()) {
+					tiles.remove(key);
+				} else {
+					tiles.put(key, remaining);
+				}
+			}
+		}
+		snapshot = null;
+		return this;
+	}
+
+	/**
+	 * Returns the accumulated shape. The shape is merged from its buckets only
+	 * when it has changed since the previous snapshot; otherwise the previous
+	 * snapshot is returned.
+	 *
+	 * @return the accumulated shape (an empty GROUP shape if nothing has been
+	 *         accumulated)
+	 */
+	public PShape snapshot() {
+		if (snapshot == null) {
+			snapshot = tiles.isEmpty() ? new PShape(PConstants.GROUP) : PGS_Conversion.toPShape(getGeometry());
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Merges the buckets into the accumulated geometry.
+	 *
+	 * @return the accumulated geometry (null if nothing has been accumulated)
+	 */
+	public Geometry getGeometry() {
+		if (tiles.isEmpty()) {
+			return null;
+		}
+		return UnaryUnionOp.union(new ArrayList<>(tiles.values()));
+	}
+
+	/**
+	 * @return whether the accumulated shape is empty
+	 */
+	public boolean isEmpty() {
+		return tiles.isEmpty();
+	}
+
+	/**
+	 * @return the number of non-empty buckets holding the accumulated shape
+	 */
+	public int getTileCount() {
+		return tiles.size();
+	}
+
+	/**
+	 * Clears the accumulated shape.
+	 */
+	public void clear() {
+		tiles.clear();
+		snapshot = null;
+	}
+
+	private int cell(double coord) {
+		return (int) Math.floor(coord / tileSize);
+	}
+
+	private static long key(int ix, int iy) {
+		return ((long) ix << 32) | (iy & 0xffffffffL);
+	}
+
+	private Geometry tileRect(int ix, int iy) {
+		return factory.toGeometry(new Envelope(ix * tileSize, (ix + 1) * tileSize, iy * tileSize, (iy + 1) * tileSize));
+	}
+
+	/**
+	 * Discards any lower-dimension (line or point) parts of an overlay result.
+	 */
+	private Geometry polygonal(Geometry g) {
+		if (g instanceof Polygonal) {
+			return g;
+		}
+		return factory.buildGeometry(PolygonExtracter.getPolygons(g));
+	}
+
+}
@@ -0,0 +1,236 @@
+package micycle.pgs.commons;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+/**
+ * Clips the convex cells of a Voronoi-like diagram to rectangular bounds, and
+ * assembles them into a conforming {@link FlatMesh}.
+ * <p>
+ * Cell vertices are registered once (by id) and shared by the cells that meet
+ * at them. Intersection points with the bounds are computed from the endpoints
+ * of an edge in a canonical order, and so are shared (by id) with the
+ * neighbouring cell that creates the same point.
+ *
+ * @author Michael Carleton
+ */
+final class CellClipper {
+
+	private final double minX, minY, maxX, maxY;
+
+	/** Clip vertices on each side of the bounds, keyed by their free coordinate. */
+	private final Long2IntOpenHashMap[] boundaryVertices = new Long2IntOpenHashMap[4];
+	/** Interleaved x,y coordinates of the vertices registered so far. */
+	private double[] vertexCoords = new double[1024];
+	private int vertexCount;
+
+	/** Coordinates and vertex ids of the current cell. */
+	private double[] cell = new double[64];
+	private int[] cellIds = new int[32];
+	private int cellSize;
+	private double[] clipped = new double[64];
+	private int[] clippedIds = new int[32];
+
+	CellClipper(double minX, double minY, double maxX, double maxY) {
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		for (int i = 0; i < boundaryVertices.length; i++) {
+			boundaryVertices[i] = new Long2IntOpenHashMap();
+			boundaryVertices[i].defaultReturnValue(-1);
+		}
+	}
+
+	/**
+	 * Forgets all registered vertices, ready for a new diagram.
+	 */
+	void reset() {
+		for (Long2IntOpenHashMap m : boundaryVertices) {
+			m.clear();
+		}
+		vertexCount = 0;
+		cellSize = 0;
+	}
+
+	/**
+	 * Registers a cell vertex.
+	 *
+	 * @return the vertex id
+	 */
+	int addVertex(double x, double y) {
+		if (2 * vertexCount + 2 > vertexCoords.length) {
+			vertexCoords = Arrays.copyOf(vertexCoords, vertexCoords.length * 2);
+		}
+		vertexCoords[2 * vertexCount] = x;
+		vertexCoords[2 * vertexCount + 1] = y;
+		return vertexCount++;
+	}
+
+	/**
+	 * Appends a (registered) vertex to the current cell.
+	 */
+	void addCellVertex(int id) {
+		if (cellSize == cellIds.length) {
+			cell = Arrays.copyOf(cell, cellSize * 4);
+			cellIds = Arrays.copyOf(cellIds, cellSize * 2);
+		}
+		cell[2 * cellSize] = vertexCoords[2 * id];
+		cell[2 * cellSize + 1] = vertexCoords[2 * id + 1];
+		cellIds[cellSize++] = id;
+	}
+
+	/**
+	 * Clips the current cell to the bounds, leaving the result in
+	 * {@link #getCellCoords()} and {@link #getCellIds()}. The next vertex added
+	 * starts a new cell.
+	 *
+	 * @return the number of vertices in the clipped cell
+	 */
+	int clipCell() {
+		// Sutherland-Hodgman clipping against each side of the (convex) bounds
+		int m = clip(cellSize, 0, minX, true, 0);
+		m = clip(m, 0, maxX, false, 1);
+		m = clip(m, 1, minY, true, 2);
+		m = clip(m, 1, maxY, false, 3);
+		cellSize = 0;
+		return m;
+	}
+
+	/**
+	 * @return interleaved x,y coordinates of the most recently clipped cell
+	 */
+	double[] getCellCoords() {
+		return cell;
+	}
+
+	/**
+	 * @return vertex ids of the most recently clipped cell
+	 */
+	int[] getCellIds() {
+		return cellIds;
+	}
+
+	/**
+	 * Builds and clips the cell of every site, and assembles the cells into a
+	 * mesh (omitting vertices that were clipped from every cell).
+	 *
+	 * @param siteCount   number of sites
+	 * @param cellBuilder adds the (unclipped) vertices of a site's cell, and
+	 *                    returns the result of {@link #clipCell()}
+	 * @return the diagram, whose faces are ordered by site index
+	 */
+	FlatVoronoi.Diagram assemble(int siteCount, IntUnaryOperator cellBuilder) {
+		final IntArrayList faceSites = new IntArrayList(siteCount);
+		final IntArrayList faceOffsets = new IntArrayList(siteCount + 1);
+		final IntArrayList vertexIndices = new IntArrayList(siteCount * 6);
+		for (int i = 0; i < siteCount; i++) {
+			final int m = cellBuilder.applyAsInt(i);
+			if (m < 3) {
+				continue;
+			}
+			faceSites.add(i);
+			faceOffsets.add(vertexIndices.size());
+			vertexIndices.addElements(vertexIndices.size(), cellIds, 0, m);
+		}
+		faceOffsets.add(vertexIndices.size());
+
+		final int[] indices = vertexIndices.toIntArray();
+		final int[] remap = new int[vertexCount];
+		Arrays.fill(remap, -1);
+		int used = 0;
+		for (int i = 0; i < indices.length; i++) {
+			final int v = indices[i];
+			if (remap[v] == -1) {
+				remap[v] = used++;
+			}
+			indices[i] = remap[v];
+		}
+		final double[] coords = new double[used * 2];
+		for (int v = 0; v < vertexCount; v++) {
+			if (remap[v] != -1) {
+				coords[2 * remap[v]] = vertexCoords[2 * v];
+				coords[2 * remap[v] + 1] = vertexCoords[2 * v + 1];
+			}
+		}
+		return new FlatVoronoi.Diagram(new FlatMesh(coords, faceOffsets.toIntArray(), indices, null), faceSites.toIntArray());
+	}
+
+	/**
+	 * Clips the cell against the half-plane where the given axis (0 = x, 1 = y)
+	 * is above (or below) a value.
+	 */
+	private int clip(int m, int axis, double value, boolean keepAbove, int side) {
+		if (m == 0) {
+			return 0;
+		}
+		if (clippedIds.length < m + 2) {
+			clipped = new double[(m + 2) * 2];
+			clippedIds = new int[m + 2];
+		}
+		int k = 0;
+		for (int j = 0; j < m; j++) {
+			final int p = (j + m - 1) % m, q = j;
+			final boolean pInside = keepAbove ? cell[2 * p + axis] >= value : cell[2 * p + axis] <= value;
+			final boolean qInside = keepAbove ? cell[2 * q + axis] >= value : cell[2 * q + axis] <= value;
+			if (pInside != qInside) { // edge crosses the boundary
+				k = append(k, intersection(p, q, axis, value, side));
+			}
+			if (qInside) {
+				k = append(k, cellIds[q]);
+			}
+		}
+		if (k > 1 && clippedIds[0] == clippedIds[k - 1]) {
+			k--;
+		}
+		final double[] swap = cell;
+		cell = clipped;
+		clipped = swap;
+		final int[] swapIds = cellIds;
+		cellIds = clippedIds;
+		clippedIds = swapIds;
+		return k;
+	}
+
+	private int append(int k, int id) {
+		if (k > 0 && clippedIds[k - 1] == id) {
+			return k;
+		}
+		if (k == clippedIds.length) {
+			clipped = Arrays.copyOf(clipped, k * 4);
+			clippedIds = Arrays.copyOf(clippedIds, k * 2);
+		}
+		clipped[2 * k] = vertexCoords[2 * id];
+		clipped[2 * k + 1] = vertexCoords[2 * id + 1];
+		clippedIds[k] = id;
+		return k + 1;
+	}
+
+	private int intersection(int p, int q, int axis, double value, int side) {
+		if (cellIds[p] > cellIds[q]) { // canonical order
+			final int t = p;
+			p = q;
+			q = t;
+		}
+		final double t = (value - cell[2 * p + axis]) / (cell[2 * q + axis] - cell[2 * p + axis]);
+		if (t <= 0) {
+			return cellIds[p];
+		}
+		if (t >= 1) {
+			return cellIds[q];
+		}
+		final int free = 1 - axis;
+		final double coord = cell[2 * p + free] + t * (cell[2 * q + free] - cell[2 * p + free]);
+		final long key = Double.doubleToLongBits(coord);
+		int id = boundaryVertices[side].get(key);
+		if (id == -1) {
+			id = axis == 0 ? addVertex(value, coord) : addVertex(coord, value);
+			boundaryVertices[side].put(key, id);
+		}
+		return id;
+	}
+
+}
@@ -12,6 +12,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import micycle.pgs.color.Colors;
 import processing.core.PConstants;
 import processing.core.PShape;
@@ -45,6 +46,79 @@ public class FastPolygonizer {
 	 *         formed by the edges input
 	 */
 	public static PShape polygonize(Collection<PEdge> edges) {
+		final PShape mesh = new PShape(PConstants.GROUP);
+		for (PVector[] face : faces(edges)) {
+			final PShape polygon = new PShape(PShape.PATH);
+			polygon.setFill(true);
+			polygon.setStroke(true);
+			polygon.setStrokeWeight(4);
+			polygon.setStrokeCap(PConstants.ROUND);
+			polygon.setFill(Colors.WHITE);
+			polygon.setStroke(Colors.PINK);
+
+			polygon.beginShape();
+			for (PVector v : face) {
+				polygon.vertex(v.x, v.y);
+			}
+			polygon.endShape(PConstants.CLOSE);
+			mesh.addChild(polygon);
+		}
+		return mesh;
+	}
+
+	/**
+	 * Polygonizes a set of edges which represent linework that forms some polygonal
+	 * arrangement (a planar graph), writing the faces directly into a
+	 * {@link FlatMesh} (without creating a PShape per face).
+	 * 
+	 * @param edges a collection of <b>NODED</b> (i.e. non intersecting / must only
+	 *              meet at their endpoints) edges. The collection can contain
+	 *              duplicates.
+	 * @return a conforming mesh of the polygon faces formed by the edges input
+	 * @since 1.5.0
+	 */
+	public static FlatMesh polygonizeMesh(Collection<PEdge> edges) {
+		final List<PVector[]> faces = faces(edges);
+		int n = 0;
+		for (PVector[] face : faces) {
+			n += face.length;
+		}
+
+		final Object2IntOpenHashMap<PVector> vertexIds = new Object2IntOpenHashMap<>(n / 2 + 1);
+		vertexIds.defaultReturnValue(-1);
+		final double[] coords = new double[n * 2]; // upper bound
+		final int[] faceOffsets = new int[faces.size() + 1];
+		final int[] vertexIndices = new int[n];
+
+		int vertices = 0;
+		int i = 0;
+		for (int f = 0; f < faces.size(); f++) {
+			faceOffsets[f] = i;
+			for (PVector v : faces.get(f)) {
+				int id = vertexIds.getInt(v);
+				if (id == -1) {
+					id = vertices++;
+					vertexIds.put(v, id);
+					coords[2 * id] = v.x;
+					coords[2 * id + 1] = v.y;
+				}
+				vertexIndices[i++] = id;
+			}
+		}
+		faceOffsets[faces.size()] = i;
+
+		final double[] trimmedCoords = new double[vertices * 2];
+		System.arraycopy(coords, 0, trimmedCoords, 0, trimmedCoords.length);
+		return new FlatMesh(trimmedCoords, faceOffsets, vertexIndices, null);
+	}
+
+	/**
+	 * Finds the polygon faces formed by a set of noded edges.
+	 * 
+	 * @return the vertices of each face (excluding the outer face), as an unclosed
+	 *         ring
+	 */
+	private static List<PVector[]> faces(Collection<PEdge> edges) {
 		// A “dart” is a directed edge.
 		final Set<Dart> darts = new HashSet<>(edges.size() * 2);
 		// A “star” for a given vertex is the set of darts that originate at that vertex
@@ -109,9 +183,8 @@ public class FastPolygonizer {
 		int largestVertexCount = -1;
 		int bopIndex = -1; // index of "big outside polygon" (which should be ignored)
 
-		final PShape mesh = new PShape(PConstants.GROUP);
+		final List<PVector[]> faces = new ArrayList<>();
 
-		int index = 0;
 		for (Dart d : darts) { // Main algorithm (to find poly faces)
 			if (d.seen) {
 				continue; // do not process dart if seen before
@@ -145,37 +218,23 @@ public class FastPolygonizer {
 			}
 
 			if (stack.size() > 2) {
-
-				final PShape polygon = new PShape(PShape.PATH);
-				polygon.setFill(true);
-				polygon.setStroke(true);
-				polygon.setStrokeWeight(4);
-				polygon.setStrokeCap(PConstants.ROUND);
-				polygon.setFill(Colors.WHITE);
-				polygon.setStroke(Colors.PINK);
-
-				polygon.beginShape();
-				while (!stack.isEmpty()) {
-					final Dart e = stack.pop();
-					polygon.vertex(e.b.x, e.b.y);
+				final PVector[] face = new PVector[stack.size()];
+				for (int i = 0; i < face.length; i++) {
+					face[i] = stack.pop().b;
 				}
-				polygon.endShape(PConstants.CLOSE);
-
-				mesh.addChild(polygon);
-
-				if (polygon.getVertexCount() > largestVertexCount) {
-					largestVertexCount = polygon.getVertexCount();
-					bopIndex = index;
+				if (face.length > largestVertexCount) {
+					largestVertexCount = face.length;
+					bopIndex = faces.size();
 				}
-				index++;
+				faces.add(face);
 			}
 		}
 
 		if (bopIndex > -1) {
-			mesh.removeChild(bopIndex);
+			faces.remove(bopIndex);
 		}
 
-		return mesh;
+		return faces;
 	}
 
 	/**
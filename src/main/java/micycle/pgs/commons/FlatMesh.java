@@ -0,0 +1,283 @@
+package micycle.pgs.commons;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import micycle.pgs.PGS_Conversion;
+import micycle.pgs.color.Colors;
+import processing.core.PConstants;
+import processing.core.PShape;
+
+/**
+ * A compact, array-based (structure-of-arrays) representation of a polygonal
+ * mesh, as a lightweight alternative to a GROUP PShape having one child PShape
+ * per face.
+ * <p>
+ * A mesh comprises:
+ * <ul>
+ * <li><code>coords</code>: the coordinates of the (unique) mesh vertices, as
+ * interleaved <code>[x0, y0, x1, y1, ...]</code> pairs;</li>
+ * <li><code>faceOffsets</code>: for each face, the offset of its first entry in
+ * <code>vertexIndices</code> (with a final entry holding the total length, so
+ * face <code>f</code> spans
+ * <code>[faceOffsets[f], faceOffsets[f + 1])</code>);</li>
+ * <li><code>vertexIndices</code>: the vertices of each face in order, as indices
+ * into the vertex list. Faces are unclosed rings, and faces that share a vertex
+ * share its index;</li>
+ * <li><code>colors</code> (optional): a fill color per face.</li>
+ * </ul>
+ * Faces are simple polygons (holes are not supported). Since vertices are
+ * shared, the mesh topology (edge adjacency) can be derived from indices alone,
+ * without coordinate hashing.
+ * <p>
+ * Meshes are treated as immutable: the arrays are exposed for fast read access
+ * and should not be modified. Methods that change a mesh (such as
+ * {@link #withCoords(double[])}) return a new mesh that shares the arrays it
+ * doesn't change.
+ *
+ * @author Michael Carleton
+ * @since 1.5.0
+ */
+public final class FlatMesh {
+
+	/** Interleaved x,y vertex coordinates. */
+	public final double[] coords;
+	/** Offset of each face's first vertex index; length = faces + 1. */
+	public final int[] faceOffsets;
+	/** The vertex indices of every face, face after face. */
+	public final int[] vertexIndices;
+	/** A fill color per face (may be null). */
+	@Nullable
+	public final int[] colors;
+
+	/**
+	 * Creates a mesh from its constituent arrays (which are not copied).
+	 *
+	 * @param coords        interleaved x,y vertex coordinates
+	 * @param faceOffsets   offset of each face's first vertex index, followed by
+	 *                      the total number of face vertices
+	 * @param vertexIndices the vertex indices of every face, face after face
+	 * @param colors        a fill color per face; may be null
+	 * @throws IllegalArgumentException if the array lengths are inconsistent
+	 */
+	public FlatMesh(double[] coords, int[] faceOffsets, int[] vertexIndices, @Nullable int[] colors) {
+		if (coords.length % 2 != 0) {
+			throw new IllegalArgumentException("coords must contain x,y pairs.");
+		}
+		if (faceOffsets.length == 0 || faceOffsets[faceOffsets.length - 1] != vertexIndices.length) {
+			throw new IllegalArgumentException("Last face offset must equal the number of vertex indices.");
+		}
+		if (colors != null && colors.length != faceOffsets.length - 1) {
+			throw new IllegalArgumentException("colors must contain one entry per face.");
+		}
+		this.coords = coords;
+		this.faceOffsets = faceOffsets;
+		this.vertexIndices = vertexIndices;
+		this.colors = colors;
+	}
+
+	/**
+	 * Creates a flat mesh from a GROUP PShape whose children are the faces of a
+	 * conforming mesh. Vertices having identical coordinates are merged, and each
+	 * face's fill color is retained. Each face's affine matrix (if any) is applied
+	 * to its vertices.
+	 *
+	 * @param mesh a GROUP PShape, whose children constitute the polygonal faces of
+	 *             a conforming mesh
+	 * @return flat representation of the mesh
+	 * @throws IllegalArgumentException if a face has a contour (hole) or curved
+	 *                                  (bezier, quadratic or curve) vertices, or is
+	 *                                  not a single polygon
+	 */
+	public static FlatMesh fromPShape(PShape mesh) {
+		final List<PShape> faces = PGS_Conversion.getChildren(mesh);
+		final List<Polygon> polygons = new ArrayList<>(faces.size());
+		final int[] colors = new int[faces.size()];
+		for (int f = 0; f < faces.size(); f++) {
+			final PShape face = faces.get(f);
+			final int[] codes = face.getVertexCodes();
+			if (codes != null) {
+				for (int code : codes) {
+					if (code != PConstants.VERTEX) {
+						throw new IllegalArgumentException("Face " + f + " has a contour or curved vertex (code " + code + ").");
+					}
+				}
+			}
+			final Geometry g = PGS_Conversion.fromPShape(face);
+			if (!(g instanceof Polygon)) {
+				throw new IllegalArgumentException("Face " + f + " is not a single polygon.");
+			}
+			polygons.add((Polygon) g);
+			colors[f] = PGS_Conversion.getFillColor(face);
+		}
+		return fromPolygons(polygons, colors);
+	}
+
+	/**
+	 * Creates a flat mesh from polygons that are the faces of a conforming mesh.
+	 * Vertices having identical coordinates are merged.
+	 *
+	 * @param faces  holeless polygons
+	 * @param colors a fill color per face; may be null
+	 * @return flat representation of the mesh
+	 * @throws IllegalArgumentException if a polygon has holes
+	 */
+	public static FlatMesh fromPolygons(List<Polygon> faces, @Nullable int[] colors) {
+		int n = 0;
+		for (Polygon face : faces) {
+			if (face.getNumInteriorRing() > 0) {
+				throw new IllegalArgumentException("Flat mesh faces cannot have holes.");
+			}
+			n += Math.max(face.getExteriorRing().getNumPoints() - 1, 0); // rings are unclosed
+		}
+
+		final Object2IntOpenHashMap<Coordinate> vertexIds = new Object2IntOpenHashMap<>(n / 2 + 1);
+		vertexIds.defaultReturnValue(-1);
+		final double[] coords = new double[n * 2]; // upper bound
+		final int[] faceOffsets = new int[faces.size() + 1];
+		final int[] vertexIndices = new int[n];
+
+		int vertices = 0;
+		int i = 0;
+		for (int f = 0; f < faces.size(); f++) {
+			faceOffsets[f] = i;
+			final CoordinateSequence ring = faces.get(f).getExteriorRing().getCoordinateSequence();
+			for (int v = 0; v < ring.size() - 1; v++) {
+				final Coordinate c = ring.getCoordinate(v);
+				int id = vertexIds.getInt(c);
+				if (id == -1) {
+					id = vertices++;
+					vertexIds.put(c, id);
+					coords[2 * id] = c.x;
+					coords[2 * id + 1] = c.y;
+				}
+				vertexIndices[i++] = id;
+			}
+		}
+		faceOffsets[faces.size()] = i;
+
+		final double[] trimmedCoords = new double[vertices * 2];
+		System.arraycopy(coords, 0, trimmedCoords, 0, trimmedCoords.length);
+		return new FlatMesh(trimmedCoords, faceOffsets, vertexIndices, colors);
+	}
+
+	/**
+	 * Converts this mesh into a GROUP PShape, having one child PShape per face.
+	 * Faces are given their fill color, if the mesh has colors.
+	 *
+	 * @return a GROUP PShape whose children are the faces of this mesh
+	 */
+	public PShape toPShape() {
+		final PShape mesh = new PShape(PConstants.GROUP);
+		for (int f = 0; f < getFaceCount(); f++) {
+			final PShape face = new PShape(PShape.PATH);
+			face.setFill(true);
+			face.setFill(colors != null ? colors[f] : Colors.WHITE);
+			face.setStroke(true);
+			face.setStroke(Colors.PINK);
+			face.setStrokeWeight(4);
+			face.setStrokeJoin(PConstants.ROUND);
+			face.setStrokeCap(PConstants.ROUND);
+			face.beginShape();
+			for (int i = faceOffsets[f]; i < faceOffsets[f + 1]; i++) {
+				final int v = vertexIndices[i];
+				face.vertex((float) coords[2 * v], (float) coords[2 * v + 1]);
+			}
+			face.endShape(PConstants.CLOSE);
+			mesh.addChild(face);
+		}
+		return mesh;
+	}
+
+	/**
+	 * @return the number of faces in the mesh
+	 */
+	public int getFaceCount() {
+		return faceOffsets.length - 1;
+	}
+
+	/**
+	 * @return the number of (unique) vertices in the mesh
+	 */
+	public int getVertexCount() {
+		return coords.length / 2;
+	}
+
+	/**
+	 * @param face face index
+	 * @return the number of vertices in the given face
+	 */
+	public int getFaceSize(int face) {
+		return faceOffsets[face + 1] - faceOffsets[face];
+	}
+
+	/**
+	 * @param face face index
+	 * @param i    index of the vertex within the face
+	 * @return the mesh vertex index of the i-th vertex of the face
+	 */
+	public int getFaceVertex(int face, int i) {
+		return vertexIndices[faceOffsets[face] + i];
+	}
+
+	/**
+	 * @param vertex mesh vertex index
+	 * @return x coordinate of the vertex
+	 */
+	public double getX(int vertex) {
+		return coords[2 * vertex];
+	}
+
+	/**
+	 * @param vertex mesh vertex index
+	 * @return y coordinate of the vertex
+	 */
+	public double getY(int vertex) {
+		return coords[2 * vertex + 1];
+	}
+
+	/**
+	 * Returns a copy of this mesh having different vertex coordinates (but the
+	 * same topology and colors).
+	 *
+	 * @param coords interleaved x,y vertex coordinates; one pair per vertex of
+	 *               this mesh
+	 * @return a new mesh
+	 */
+	public FlatMesh withCoords(double[] coords) {
+		if (coords.length != this.coords.length) {
+			throw new IllegalArgumentException("coords must contain one x,y pair per mesh vertex.");
+		}
+		return new FlatMesh(coords, faceOffsets, vertexIndices, colors);
+	}
+
+	/**
+	 * Returns a copy of this mesh having different face colors (but the same
+	 * geometry).
+	 *
+	 * @param colors a fill color per face; may be null
+	 * @return a new mesh
+	 */
+	public FlatMesh withColors(@Nullable int[] colors) {
+		return new FlatMesh(coords, faceOffsets, vertexIndices, colors);
+	}
+
+	/**
+	 * Encodes the undirected edge between two vertices as a single key, independent
+	 * of the order of its vertices.
+	 *
+	 * @param a vertex index
+	 * @param b vertex index
+	 * @return edge key
+	 */
+	public static long edgeKey(int a, int b) {
+		return a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+	}
+
+}
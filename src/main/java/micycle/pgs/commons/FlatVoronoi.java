@@ -0,0 +1,247 @@
+package micycle.pgs.commons;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.tinfour.common.IQuadEdge;
+import org.tinfour.common.Vertex;
+import org.tinfour.standard.IncrementalTin;
+import org.tinfour.utils.HilbertSort;
+
+/**
+ * Builds bounded Voronoi diagrams of sites given as packed primitive coordinate
+ * arrays, writing the cells directly into a {@link FlatMesh} (without creating
+ * any per-cell objects).
+ * <p>
+ * Cells are derived from the circumcenters of a Delaunay triangulation of the
+ * sites (four frame vertices far outside the bounds ensure that every site has
+ * a closed cell), and clipped to the rectangular bounds. Voronoi vertices are
+ * shared between the cells that meet at them, so the output is a conforming
+ * mesh.
+ * <p>
+ * A builder retains its triangulation and buffers between builds, so a single
+ * instance should be reused when the diagram of moving sites (such as
+ * particles) is built every frame. Builders are not thread-safe.
+ *
+ * @author Michael Carleton
+ * @since 1.5.0
+ */
+public final class FlatVoronoi {
+
+	/**
+	 * The result of a build: a Voronoi diagram, and the site that each of its
+	 * faces belongs to.
+	 */
+	public static final class Diagram {
+
+		/** The bounded Voronoi cells, as faces of a conforming mesh. */
+		public final FlatMesh mesh;
+		/**
+		 * The index of the site (within the input coordinate array) of each face.
+		 * Sites lying outside the bounds, or coincident with an earlier site, have no
+		 * face (nor, in a power diagram, do sites whose cell is empty).
+		 */
+		public final int[] sites;
+
+		Diagram(FlatMesh mesh, int[] sites) {
+			this.mesh = mesh;
+			this.sites = sites;
+		}
+	}
+
+	private final double minX, minY, maxX, maxY;
+	/**
+	 * Frame vertices, placed far outside the bounds so that every site is interior
+	 * to the triangulation (and so has a closed Voronoi cell).
+	 */
+	private final Vertex[] frame;
+	private IncrementalTin tin;
+	/** An edge starting at each site in the current triangulation (or null). */
+	private IQuadEdge[] siteEdges = new IQuadEdge[0];
+
+	/** Voronoi vertex of each triangle (keyed by its lowest side index), or -1. */
+	private int[] triangleVertices = new int[0];
+	private final CellClipper clipper;
+
+	/**
+	 * Creates a builder of Voronoi diagrams within the given bounds.
+	 *
+	 * @param bounds an array of the form [minX, minY, maxX, maxY] defining the
+	 *               bounds of diagrams
+	 */
+	public FlatVoronoi(double[] bounds) {
+		if (!(bounds[2] > bounds[0] && bounds[3] > bounds[1])) {
+			throw new IllegalArgumentException("Bounds must have a positive width and height.");
+		}
+		minX = bounds[0];
+		minY = bounds[1];
+		maxX = bounds[2];
+		maxY = bounds[3];
+		final double margin = 2 * Math.hypot(maxX - minX, maxY - minY);
+		frame = new Vertex[] { new Vertex(minX - margin, minY - margin, 0, -1), new Vertex(maxX + margin, minY - margin, 0, -1),
+				new Vertex(maxX + margin, maxY + margin, 0, -1), new Vertex(minX - margin, maxY + margin, 0, -1) };
+		clipper = new CellClipper(minX, minY, maxX, maxY);
+	}
+
+	/**
+	 * Builds the Voronoi diagram of the given sites.
+	 *
+	 * @param sites interleaved x,y coordinates of the Voronoi sites
+	 * @return the diagram, whose faces are ordered by site index
+	 */
+	public Diagram build(float[] sites) {
+		final double[] coords = new double[sites.length];
+		for (int i = 0; i < coords.length; i++) {
+			coords[i] = sites[i];
+		}
+		return build(coords);
+	}
+
+	/**
+	 * Builds the Voronoi diagram of the given sites.
+	 *
+	 * @param sites interleaved x,y coordinates of the Voronoi sites
+	 * @return the diagram, whose faces are ordered by site index
+	 */
+	public Diagram build(double[] sites) {
+		return build(sites, Double.NaN);
+	}
+
+	/**
+	 * Builds the Voronoi diagram of the given sites, whose triangulation is sized
+	 * for the given point spacing.
+	 *
+	 * @param sites   interleaved x,y coordinates of the Voronoi sites
+	 * @param spacing the nominal spacing of the sites, or NaN to derive it from
+	 *                the bounds and the number of sites within them
+	 */
+	Diagram build(double[] sites, double spacing) {
+		final int n = sites.length / 2;
+		final List<Vertex> vertices = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			final double x = sites[2 * i], y = sites[2 * i + 1];
+			if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+				vertices.add(new Vertex(x, y, 0, i));
+			}
+		}
+		new HilbertSort().sort(vertices);
+		triangulate(vertices, n, Double.isNaN(spacing) ? spacing(vertices.size()) : spacing);
+		return clipper.assemble(n, this::buildCell);
+	}
+
+	/**
+	 * @return the nominal spacing of the given number of sites spread over the
+	 *         bounds
+	 */
+	double spacing(int siteCount) {
+		return Math.sqrt((maxX - minX) * (maxY - minY) / Math.max(siteCount, 1));
+	}
+
+	/**
+	 * Clears and refills the triangulation with the given sites, and finds an edge
+	 * starting at each site.
+	 *
+	 * @param sites     site vertices (lying within the bounds), whose index is the
+	 *                  site index; ideally in a spatially coherent order
+	 * @param siteCount one more than the largest site index
+	 * @param spacing   the nominal spacing of the sites. The triangulation (whose
+	 *                  tolerances derive from its spacing) is recreated if its
+	 *                  spacing differs from this by more than a factor of 2.
+	 */
+	void triangulate(List<Vertex> sites, int siteCount, double spacing) {
+		if (tin == null || Math.abs(Math.log(tin.getNominalPointSpacing() / spacing)) > Math.log(2)) {
+			tin = new IncrementalTin(spacing);
+		}
+		tin.clear();
+		final List<Vertex> vertices = new ArrayList<>(sites.size() + frame.length);
+		vertices.addAll(Arrays.asList(frame));
+		vertices.addAll(sites);
+		tin.add(vertices, null);
+
+		if (siteEdges.length != siteCount) {
+			siteEdges = new IQuadEdge[siteCount];
+		} else {
+			Arrays.fill(siteEdges, null);
+		}
+		for (IQuadEdge e : tin.edges()) { // base edges only
+			recordSiteEdge(e);
+			recordSiteEdge(e.getDual());
+		}
+
+		final int maxIndex = tin.getMaximumEdgeAllocationIndex() + 2;
+		if (triangleVertices.length < maxIndex) {
+			triangleVertices = new int[maxIndex];
+		}
+		Arrays.fill(triangleVertices, -1);
+		clipper.reset();
+	}
+
+	/**
+	 * Computes the Voronoi cell of a site (the circumcenters of the triangles
+	 * around it) clipped to the bounds. Its vertex coordinates are then available
+	 * from {@link #getCellCoords()}.
+	 *
+	 * @return the number of vertices in the clipped cell (0 if the site has no
+	 *         cell)
+	 */
+	int buildCell(int site) {
+		final IQuadEdge start = siteEdges[site];
+		if (start == null) {
+			return 0;
+		}
+		for (IQuadEdge e : start.pinwheel()) {
+			final int id = circumcenter(e);
+			if (id != -1) {
+				clipper.addCellVertex(id);
+			}
+		}
+		return clipper.clipCell();
+	}
+
+	/**
+	 * @return interleaved x,y coordinates of the cell most recently built by
+	 *         {@link #buildCell(int)}
+	 */
+	double[] getCellCoords() {
+		return clipper.getCellCoords();
+	}
+
+	private void recordSiteEdge(IQuadEdge e) {
+		final Vertex a = e.getA();
+		if (a != null && a.getIndex() >= 0 && siteEdges[a.getIndex()] == null) {
+			siteEdges[a.getIndex()] = e;
+		}
+	}
+
+	/**
+	 * Finds the Voronoi vertex (the circumcenter) of the triangle to the left of
+	 * an edge, computing it only the first time the triangle is visited.
+	 *
+	 * @return the vertex id, or -1 if the triangle is degenerate
+	 */
+	private int circumcenter(IQuadEdge e) {
+		final IQuadEdge f = e.getForward();
+		final IQuadEdge r = f.getForward();
+		final int key = Math.min(e.getIndex(), Math.min(f.getIndex(), r.getIndex()));
+		final int known = triangleVertices[key];
+		if (known != -1) {
+			return known;
+		}
+		final Vertex a = e.getA(), b = e.getB(), c = f.getB();
+		if (b == null || c == null) {
+			return -1;
+		}
+		final double bx = b.x - a.x, by = b.y - a.y;
+		final double cx = c.x - a.x, cy = c.y - a.y;
+		final double d = 2 * (bx * cy - by * cx);
+		if (d == 0) {
+			return -1;
+		}
+		final double b2 = bx * bx + by * by, c2 = cx * cx + cy * cy;
+		final int id = clipper.addVertex(a.x + (cy * b2 - by * c2) / d, a.y + (bx * c2 - cx * b2) / d);
+		triangleVertices[key] = id;
+		return id;
+	}
+
+}
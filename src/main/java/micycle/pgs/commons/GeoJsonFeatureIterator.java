@@ -0,0 +1,201 @@
+package micycle.pgs.commons;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits a GeoJSON document into the JSON text of its individual features,
+ * reading the document incrementally from a {@link Reader}.
+ * <p>
+ * When the document is a <code>FeatureCollection</code>, each element of its
+ * top-level <code>"features"</code> array is returned in turn, so memory use is
+ * bounded by the size of the largest single feature rather than by the size of
+ * the document. Any other document (a single <code>Feature</code> or a bare
+ * geometry) is returned whole as a single element.
+ * <p>
+ * The iterator only tracks object/array nesting, string literals and the
+ * top-level members of features; it does not validate the JSON it returns,
+ * which is left to the consumer (such as JTS' <code>GeoJsonReader</code>).
+ *
+ * @author Michael Carleton
+ * @since 1.5.0
+ */
+public class GeoJsonFeatureIterator implements Iterator<String> {
+
+	private static final String FEATURES_KEY = "features";
+	private static final String GEOMETRY_KEY = "geometry";
+
+	private final Reader reader;
+
+	private int depth = 0;
+	private boolean inString = false;
+	private boolean escaped = false;
+
+	/**
+	 * Last string literal completed at a member depth (a candidate member name).
+	 */
+	private String lastString;
+	private String currentKey;
+	private final StringBuilder keyBuffer = new StringBuilder();
+
+	/** Depth of the elements of the top-level features array; -1 when outside. */
+	private int featuresDepth = -1;
+	private boolean sawFeatures = false;
+	private StringBuilder feature;
+	/** Whether the next value token is that of a top-level geometry member. */
+	private boolean awaitingGeometry = false;
+	private boolean nullGeometry = false;
+	/** Document text outside of the features array. */
+	private final StringBuilder remainder = new StringBuilder();
+
+	private String next;
+	private boolean finished = false;
+
+	/**
+	 * @param reader the GeoJSON source. The reader is read lazily, as features are
+	 *               requested, and is not closed by this iterator.
+	 */
+	public GeoJsonFeatureIterator(Reader reader) {
+		this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null && !finished) {
+			try {
+				next = advance();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return next != null;
+	}
+
+	/**
+	 * @return the JSON text of the next feature
+	 */
+	@Override
+	public String next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		final String out = next;
+		next = null;
+		return out;
+	}
+
+	/**
+	 * @return whether the top-level <code>"geometry"</code> member of the feature
+	 *         most recently returned by {@link #next()} is <code>null</code>
+	 *         (nested members of that name, such as within the feature's
+	 *         properties, are not considered)
+	 */
+	public boolean hasNullGeometry() {
+		return nullGeometry;
+	}
+
+	/**
+	 * Reads characters until a complete feature has been consumed, or the end of
+	 * the document is reached.
+	 *
+	 * @return the feature text, or null if there are no more features
+	 */
+	private String advance() throws IOException {
+		int r;
+		while ((r = reader.read()) != -1) {
+			final char c = (char) r;
+			if (feature != null) {
+				feature.append(c);
+			} else if (featuresDepth == -1) {
+				remainder.append(c);
+			}
+
+			if (inString) {
+				if (escaped) {
+					escaped = false;
+				} else if (c == '\\') {
+					escaped = true;
+				} else if (c == '"') {
+					inString = false;
+					if (isMemberDepth()) {
+						lastString = keyBuffer.toString();
+					}
+				}
+				if (isMemberDepth() && inString) {
+					keyBuffer.append(c);
+				}
+				continue;
+			}
+
+			if (awaitingGeometry && !Character.isWhitespace(c)) {
+				awaitingGeometry = false;
+				nullGeometry = c == 'n'; // only the null literal begins with 'n'
+			}
+
+			switch (c) {
+				case '"' :
+					inString = true;
+					keyBuffer.setLength(0);
+					break;
+				case ':' :
+					if (isMemberDepth()) {
+						currentKey = lastString;
+						awaitingGeometry = GEOMETRY_KEY.equals(currentKey);
+					}
+					break;
+				case ',' :
+					if (isMemberDepth()) {
+						currentKey = null;
+					}
+					break;
+				case '{' :
+				case '[' :
+					if (c == '[' && depth == 1 && FEATURES_KEY.equals(currentKey)) {
+						featuresDepth = depth + 1;
+						sawFeatures = true;
+					} else if (c == '{' && depth == featuresDepth && feature == null) {
+						feature = new StringBuilder().append(c);
+						nullGeometry = false;
+					}
+					depth++;
+					break;
+				case '}' :
+				case ']' :
+					depth--;
+					if (feature != null && depth == featuresDepth) {
+						final String out = feature.toString();
+						feature = null;
+						return out;
+					}
+					if (depth < featuresDepth) {
+						featuresDepth = -1;
+						remainder.append(c); // close the (now empty) features array
+					}
+					break;
+				default :
+					break;
+			}
+		}
+
+		finished = true;
+		if (!sawFeatures) {
+			final String document = remainder.toString().trim();
+			remainder.setLength(0);
+			return document.isEmpty() ? null : document;
+		}
+		return null;
+	}
+
+	/**
+	 * @return whether the parser is at the depth of the members of the document
+	 *         object, or of the feature being read
+	 */
+	private boolean isMemberDepth() {
+		return depth == 1 || (feature != null && depth == featuresDepth + 1);
+	}
+
+}
@@ -0,0 +1,259 @@
+package micycle.pgs.commons;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.tinfour.common.Vertex;
+import org.tinfour.utils.HilbertSort;
+
+import micycle.pgs.PGS_Conversion;
+import processing.core.PShape;
+import processing.core.PVector;
+
+/**
+ * A persistent Lloyd relaxation engine, which iteratively moves a set of
+ * Voronoi sites towards the centroids of their (bounded) Voronoi cells,
+ * converging on a <i>Centroidal Voronoi Diagram</i>.
+ * <p>
+ * Unlike the relaxation performed by <code>PGS_Voronoi.innerVoronoi()</code>,
+ * which builds a new bounded Voronoi diagram (and new site objects) every
+ * iteration, the engine keeps its state between iterations: site coordinates
+ * are held in a primitive array and updated in place, and a single Delaunay
+ * triangulation is cleared and refilled (in a Hilbert curve order, computed
+ * once) each iteration, reusing its allocated edges. Voronoi cells are derived
+ * directly from triangle circumcenters and clipped to the bounds, and sites are
+ * moved to the true area centroids of their cells (rather than the average of
+ * cell vertices).
+ * <p>
+ * Relaxation is driven by {@link #step()}, one iteration per call, making the
+ * engine suitable for animating relaxation frame-by-frame; {@link #getCells()}
+ * returns the diagram of the current sites at any time. Engines are not
+ * thread-safe.
+ *
+ * @author Michael Carleton
+ * @since 1.5.0
+ */
+public final class LloydRelaxation {
+
+	private static final GeometryFactory GEOM_FACTORY = new GeometryFactory(new PrecisionModel(PrecisionModel.FLOATING_SINGLE));
+
+	private final double minX, minY, maxX, maxY;
+	/** Interleaved x,y site coordinates, by site index. Updated in place. */
+	private final double[] sites;
+	/** Site indices in Hilbert curve order (the triangulation insertion order). */
+	private final int[] order;
+	/** Builds the (clipped) Voronoi cells of the sites. */
+	private final FlatVoronoi voronoi;
+	/** Whether the triangulation reflects the current site positions. */
+	private boolean triangulated;
+	private int iteration;
+
+	/**
+	 * Creates a relaxation engine for the given sites.
+	 *
+	 * @param sites  the initial Voronoi sites
+	 * @param bounds an array of the form [minX, minY, maxX, maxY] defining the
+	 *               bounds of the diagram. Sites outside the bounds are clamped to
+	 *               them.
+	 */
+	public LloydRelaxation(Collection<PVector> sites, double[] bounds) {
+		this(toCoords(sites), bounds);
+	}
+
+	/**
+	 * Creates a relaxation engine for the given sites.
+	 *
+	 * @param coords interleaved x,y coordinates of the initial Voronoi sites (the
+	 *               array is copied)
+	 * @param bounds an array of the form [minX, minY, maxX, maxY] defining the
+	 *               bounds of the diagram. Sites outside the bounds are clamped to
+	 *               them.
+	 */
+	public LloydRelaxation(double[] coords, double[] bounds) {
+		if (!(bounds[2] > bounds[0] && bounds[3] > bounds[1])) {
+			throw new IllegalArgumentException("Bounds must have a positive width and height.");
+		}
+		minX = bounds[0];
+		minY = bounds[1];
+		maxX = bounds[2];
+		maxY = bounds[3];
+
+		final int n = coords.length / 2;
+		sites = new double[n * 2];
+		for (int i = 0; i < n; i++) {
+			sites[2 * i] = clamp(coords[2 * i], minX, maxX);
+			sites[2 * i + 1] = clamp(coords[2 * i + 1], minY, maxY);
+		}
+
+		final List<Vertex> vertices = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			vertices.add(new Vertex(sites[2 * i], sites[2 * i + 1], 0, i));
+		}
+		new HilbertSort().sort(vertices);
+		order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = vertices.get(i).getIndex();
+		}
+
+		voronoi = new FlatVoronoi(bounds);
+	}
+
+	/**
+	 * Performs one relaxation iteration, moving every site to the area centroid
+	 * of its Voronoi cell.
+	 *
+	 * @return the largest distance that any site moved during the iteration (this
+	 *         tends to 0 as the diagram converges)
+	 */
+	public double step() {
+		triangulate();
+		double maxDisplacement = 0;
+		for (int i = 0; i < order.length; i++) {
+			final int m = voronoi.buildCell(i);
+			final double[] cell = voronoi.getCellCoords();
+			if (m < 3) {
+				continue; // coincident with another site (or degenerate)
+			}
+			double area = 0, cx = 0, cy = 0;
+			for (int j = 0; j < m; j++) {
+				final double x0 = cell[2 * j], y0 = cell[2 * j + 1];
+				final double x1 = cell[(2 * j + 2) % (2 * m)], y1 = cell[(2 * j + 3) % (2 * m)];
+				final double cross = x0 * y1 - x1 * y0;
+				area += cross;
+				cx += (x0 + x1) * cross;
+				cy += (y0 + y1) * cross;
+			}
+			if (area == 0) {
+				continue;
+			}
+			cx = clamp(cx / (3 * area), minX, maxX);
+			cy = clamp(cy / (3 * area), minY, maxY);
+			maxDisplacement = Math.max(maxDisplacement, Math.hypot(cx - sites[2 * i], cy - sites[2 * i + 1]));
+			sites[2 * i] = cx;
+			sites[2 * i + 1] = cy;
+		}
+		triangulated = false;
+		iteration++;
+		return maxDisplacement;
+	}
+
+	/**
+	 * Performs relaxation iterations until the diagram converges (when no site
+	 * moves further than the given tolerance during an iteration) or the maximum
+	 * number of iterations is reached.
+	 *
+	 * @param maxIterations the maximum number of iterations to perform
+	 * @param tolerance     the convergence threshold for site displacement
+	 * @return the number of iterations performed
+	 */
+	public int relax(int maxIterations, double tolerance) {
+		for (int i = 0; i < maxIterations; i++) {
+			if (step() < tolerance) {
+				return i + 1;
+			}
+		}
+		return maxIterations;
+	}
+
+	/**
+	 * Builds the bounded Voronoi diagram of the current sites.
+	 *
+	 * @return a GROUP PShape, where each child shape is a Voronoi cell. The
+	 *         <code>.name</code> value of each cell is set to the integer index of
+	 *         its site.
+	 */
+	public PShape getCells() {
+		triangulate();
+		final List<Polygon> cells = new ArrayList<>(order.length);
+		for (int i = 0; i < order.length; i++) {
+			final int m = voronoi.buildCell(i);
+			final double[] cell = voronoi.getCellCoords();
+			if (m < 3) {
+				continue;
+			}
+			final Coordinate[] coords = new Coordinate[m + 1];
+			for (int j = 0; j < m; j++) {
+				coords[j] = new Coordinate(cell[2 * j], cell[2 * j + 1]);
+			}
+			coords[m] = coords[0];
+			final Polygon p = GEOM_FACTORY.createPolygon(coords);
+			p.setUserData(i);
+			cells.add(p);
+		}
+		final PShape shape = PGS_Conversion.toPShape(cells);
+		for (int i = 0; i < cells.size(); i++) {
+			shape.getChild(i).setName(Integer.toString((int) cells.get(i).getUserData()));
+		}
+		return shape;
+	}
+
+	/**
+	 * @return the current site positions, by site index
+	 */
+	public List<PVector> getSites() {
+		final List<PVector> points = new ArrayList<>(order.length);
+		for (int i = 0; i < order.length; i++) {
+			points.add(new PVector((float) sites[2 * i], (float) sites[2 * i + 1]));
+		}
+		return points;
+	}
+
+	/**
+	 * @return the interleaved x,y coordinates of the current site positions, by
+	 *         site index. This is the engine's backing array (updated in place by
+	 *         each iteration), which should not be modified.
+	 */
+	public double[] getSiteCoordinates() {
+		return sites;
+	}
+
+	/**
+	 * @return the number of sites
+	 */
+	public int getSiteCount() {
+		return order.length;
+	}
+
+	/**
+	 * @return the number of relaxation iterations performed so far
+	 */
+	public int getIteration() {
+		return iteration;
+	}
+
+	/**
+	 * Refills the triangulation from the current site positions (if they have
+	 * moved since it was last filled).
+	 */
+	private void triangulate() {
+		if (triangulated) {
+			return;
+		}
+		final List<Vertex> vertices = new ArrayList<>(order.length);
+		for (int i : order) {
+			vertices.add(new Vertex(sites[2 * i], sites[2 * i + 1], 0, i));
+		}
+		voronoi.triangulate(vertices, order.length, voronoi.spacing(order.length));
+		triangulated = true;
+	}
+
+	private static double clamp(double value, double min, double max) {
+		return Math.max(min, Math.min(max, value));
+	}
+
+	private static double[] toCoords(Collection<PVector> points) {
+		final double[] coords = new double[points.size() * 2];
+		int i = 0;
+		for (PVector p : points) {
+			coords[i++] = p.x;
+			coords[i++] = p.y;
+		}
+		return coords;
+	}
+
+}
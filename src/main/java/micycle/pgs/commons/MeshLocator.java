@@ -0,0 +1,245 @@
+package micycle.pgs.commons;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.locationtech.jts.algorithm.locate.SimplePointInAreaLocator;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Location;
+import org.locationtech.jts.geom.util.AffineTransformation;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import micycle.pgs.PGS_Conversion;
+import micycle.pgs.PGS_Transformation;
+import micycle.trapmap.TrapMap;
+import processing.core.PShape;
+import processing.core.PVector;
+
+/**
+ * A point-location index over the faces of a mesh (a GROUP shape having
+ * non-overlapping children), built once and then queried repeatedly.
+ * <p>
+ * The index is a trapezoidal map, which locates the face containing a point in
+ * O(log n) time. Trapezoidal map construction can fail on degenerate inputs;
+ * in this case construction is retried on a very slightly sheared copy of the
+ * mesh (queries are sheared likewise), and if that fails too, the locator falls
+ * back to an STR-tree of face envelopes, where each candidate face is tested
+ * directly.
+ * <p>
+ * The locator reflects the mesh at the time it was built; it does not observe
+ * later changes to the mesh or its faces.
+ *
+ * @author Michael Carleton
+ * @since 1.5.0
+ */
+public final class MeshLocator {
+
+	/** Shear applied to the mesh when the trapezoidal map fails on the original. */
+	private static final double SHEAR = .00001;
+
+	private final List<PShape> faces;
+	/** Maps faces in the trapezoidal map to their index (null when STR-tree only). */
+	private final Map<PShape, Integer> faceIndices;
+	private final TrapMap trapMap;
+	private final AffineTransformation queryTransform;
+	private volatile STRtree tree;
+
+	/**
+	 * Builds a locator over the faces (the descendant child shapes) of a mesh. A
+	 * non-GROUP shape is treated as a mesh having a single face.
+	 *
+	 * @param mesh a GROUP shape whose children do not overlap
+	 */
+	public MeshLocator(PShape mesh) {
+		faces = PGS_Conversion.getChildren(mesh);
+		faceIndices = new IdentityHashMap<>(faces.size());
+
+		TrapMap map = null;
+		AffineTransformation transform = null;
+		try {
+			map = new TrapMap(faces);
+			for (int i = 0; i < faces.size(); i++) {
+				faceIndices.put(faces.get(i), i);
+			}
+		} catch (Exception e) {
+			/*
+			 * Handle error thrown by TrapMap on degenerate/strange inputs. Generally
+			 * shearing will fix the problem (ideally this would be done within TrapMap).
+			 */
+			try {
+				final List<PShape> sheared = PGS_Conversion.getChildren(PGS_Transformation.shear(mesh, SHEAR, 0));
+				if (sheared.size() == faces.size()) { // otherwise sheared faces can't be matched to originals
+					map = new TrapMap(sheared);
+					transform = AffineTransformation.shearInstance(SHEAR, 0);
+					for (int i = 0; i < sheared.size(); i++) {
+						faceIndices.put(sheared.get(i), i);
+					}
+				}
+			} catch (Exception e2) {
+				map = null;
+			}
+		}
+		trapMap = map;
+		queryTransform = transform;
+		if (trapMap == null) {
+			tree = buildTree(); // eagerly, since every query will use it
+		}
+	}
+
+	/**
+	 * Finds the index of the face that contains a point.
+	 *
+	 * @param x x coordinate of the query point
+	 * @param y y coordinate of the query point
+	 * @return index of the containing face (within the list of mesh faces, as
+	 *         given by {@link #getFaces()}), or -1 if no face contains the point
+	 */
+	public int locateIndex(double x, double y) {
+		if (trapMap != null) {
+			double qx = x, qy = y;
+			if (queryTransform != null) {
+				final Coordinate c = new Coordinate(x, y);
+				queryTransform.transform(c, c);
+				qx = c.x;
+				qy = c.y;
+			}
+			final PShape face = trapMap.findContainingPolygon((float) qx, (float) qy);
+			if (face == null) {
+				return -1;
+			}
+			final Integer index = faceIndices.get(face);
+			if (index != null) {
+				return index;
+			}
+		}
+		return locateIndexTree(x, y);
+	}
+
+	/**
+	 * Finds the index of the face that contains a point.
+	 *
+	 * @param point the query point
+	 * @return index of the containing face, or -1 if no face contains the point
+	 */
+	public int locateIndex(PVector point) {
+		return locateIndex(point.x, point.y);
+	}
+
+	/**
+	 * Finds the face that contains a point.
+	 *
+	 * @param point the query point
+	 * @return the face (child shape of the mesh) that contains the point, or null
+	 *         if no face contains the point
+	 */
+	public PShape locate(PVector point) {
+		final int index = locateIndex(point.x, point.y);
+		return index == -1 ? null : faces.get(index);
+	}
+
+	/**
+	 * Finds the index of the face that contains each of the given points.
+	 *
+	 * @param points the query points
+	 * @return an array containing, for each query point (in iteration order), the
+	 *         index of its containing face, or -1 if no face contains it
+	 */
+	public int[] locateIndices(Collection<PVector> points) {
+		final int[] indices = new int[points.size()];
+		int i = 0;
+		for (PVector p : points) {
+			indices[i++] = locateIndex(p.x, p.y);
+		}
+		return indices;
+	}
+
+	/**
+	 * Finds the index of the face that contains each of the given points.
+	 *
+	 * @param coords interleaved x,y coordinates of the query points
+	 * @return an array containing, for each query point, the index of its
+	 *         containing face, or -1 if no face contains it
+	 */
+	public int[] locateIndices(double[] coords) {
+		final int[] indices = new int[coords.length / 2];
+		for (int i = 0; i < indices.length; i++) {
+			indices[i] = locateIndex(coords[2 * i], coords[2 * i + 1]);
+		}
+		return indices;
+	}
+
+	/**
+	 * Finds the face that contains each of the given points.
+	 *
+	 * @param points the query points
+	 * @return a list containing, for each query point (in iteration order), its
+	 *         containing face, or null if no face contains it
+	 */
+	public List<PShape> locate(Collection<PVector> points) {
+		final List<PShape> located = new ArrayList<>(points.size());
+		for (PVector p : points) {
+			final int index = locateIndex(p.x, p.y);
+			located.add(index == -1 ? null : faces.get(index));
+		}
+		return located;
+	}
+
+	/**
+	 * @return the faces of the mesh, in the order to which face indices refer
+	 */
+	public List<PShape> getFaces() {
+		return faces;
+	}
+
+	/**
+	 * @return the number of faces in the mesh
+	 */
+	public int getFaceCount() {
+		return faces.size();
+	}
+
+	private int locateIndexTree(double x, double y) {
+		final Coordinate c = new Coordinate(x, y);
+		@SuppressWarnings("unchecked")
+		final List<Object[]> candidates = getTree().query(new Envelope(c));
+		for (Object[] candidate : candidates) {
+			if (SimplePointInAreaLocator.locate(c, (Geometry) candidate[1]) != Location.EXTERIOR) {
+				return (int) candidate[0];
+			}
+		}
+		return -1;
+	}
+
+	private STRtree getTree() {
+		STRtree t = tree;
+		if (t == null) {
+			synchronized (this) {
+				t = tree;
+				if (t == null) {
+					t = buildTree();
+					tree = t;
+				}
+			}
+		}
+		return t;
+	}
+
+	/**
+	 * Builds an STR-tree whose items are [face index, face geometry] pairs.
+	 */
+	private STRtree buildTree() {
+		final STRtree t = new STRtree();
+		for (int i = 0; i < faces.size(); i++) {
+			final Geometry g = PGS_Conversion.fromPShape(faces.get(i));
+			t.insert(g.getEnvelopeInternal(), new Object[] { i, g });
+		}
+		t.build();
+		return t;
+	}
+
+}
@@ -0,0 +1,377 @@
+package micycle.pgs.commons;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.tinfour.common.Vertex;
+import org.tinfour.utils.HilbertSort;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+/**
+ * Builds bounded power diagrams (also known as Laguerre-Voronoi diagrams) of
+ * weighted sites, writing the cells directly into a {@link FlatMesh}.
+ * <p>
+ * In a power diagram, each point belongs to the cell of the site having the
+ * smallest <i>power distance</i> <code>|p - s|² - w</code> to it, where
+ * <code>w</code> is the weight of the site. Cells are convex polygons bounded by
+ * straight edges (as in an ordinary Voronoi diagram, which is the power diagram
+ * of equally weighted sites), but a site needn't lie within its own cell, and
+ * sites whose weights are small relative to their neighbours' may have no cell
+ * at all. When sites are the centers of circles and weights are their squared
+ * radii, the cells of touching circles meet at their common tangent.
+ * <p>
+ * The diagram is the dual of a <i>regular</i> (weighted Delaunay)
+ * triangulation, which is built incrementally (inserting sites in Hilbert curve
+ * order, locating each by a randomised walk and replacing the cavity of
+ * triangles in conflict with it). Cell vertices are the power centers of
+ * triangles, shared between the cells meeting at them, so the output is a
+ * conforming mesh. Builders reuse their buffers between builds, and are not
+ * thread-safe.
+ *
+ * @author Michael Carleton
+ * @since 1.5.0
+ */
+public final class PowerDiagram {
+
+	/** Number of (far-away, unweighted) vertices enclosing every site. */
+	private static final int FRAME = 3;
+
+	private final double minX, minY, maxX, maxY;
+	private final CellClipper clipper;
+
+	/* Vertices: the frame vertices followed by one vertex per site. */
+	private double[] vx = new double[0], vy = new double[0], vw = new double[0];
+	/** A triangle incident to each vertex, or -1 if the vertex is not (or no longer) in the triangulation. */
+	private int[] vertexTriangles = new int[0];
+
+	/*
+	 * Triangles: three CCW vertices each (-1 for freed triangles), and the
+	 * neighbouring triangle opposite each vertex (-1 on the outer hull).
+	 */
+	private int[] triangleVertices = new int[0];
+	private int[] neighbours = new int[0];
+	private int triangleCount;
+	private final IntArrayList freeTriangles = new IntArrayList();
+	/** Power center (cell vertex id) of each triangle, or -1 if not yet computed. */
+	private int[] powerCenters = new int[0];
+
+	/* Cavity state during an insertion. */
+	private int[] cavityStamps = new int[0];
+	private int stamp;
+	private final IntArrayList cavity = new IntArrayList();
+	private final IntArrayList boundary = new IntArrayList();
+	private int[] vertexStamps = new int[0];
+	private int[] startTriangles = new int[0];
+	private int lastTriangle;
+	private long random = 0x2545F4914F6CDD1DL;
+
+	/**
+	 * Creates a builder of power diagrams within the given bounds.
+	 *
+	 * @param bounds an array of the form [minX, minY, maxX, maxY] defining the
+	 *               bounds of diagrams
+	 */
+	public PowerDiagram(double[] bounds) {
+		if (!(bounds[2] > bounds[0] && bounds[3] > bounds[1])) {
+			throw new IllegalArgumentException("Bounds must have a positive width and height.");
+		}
+		minX = bounds[0];
+		minY = bounds[1];
+		maxX = bounds[2];
+		maxY = bounds[3];
+		clipper = new CellClipper(minX, minY, maxX, maxY);
+	}
+
+	/**
+	 * Builds the power diagram of the given weighted sites.
+	 *
+	 * @param sites   interleaved x,y coordinates of the sites
+	 * @param weights the weight of each site. Sites having no weight (a null
+	 *                array) are equally weighted, producing a Voronoi diagram.
+	 * @return the diagram, whose faces are ordered by site index. Sites lying
+	 *         outside the bounds, or whose cell is empty, have no face.
+	 */
+	public FlatVoronoi.Diagram build(double[] sites, @Nullable double[] weights) {
+		final int n = sites.length / 2;
+		init(n);
+
+		double maxWeight = 0;
+		final List<Vertex> inserted = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			final double x = sites[2 * i], y = sites[2 * i + 1];
+			final int v = FRAME + i;
+			vx[v] = x;
+			vy[v] = y;
+			vw[v] = weights == null ? 0 : weights[i];
+			if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+				inserted.add(new Vertex(x, y, 0, i));
+				maxWeight = Math.max(maxWeight, Math.abs(vw[v]));
+			}
+		}
+
+		/*
+		 * The frame triangle is far enough away that its vertices' cells lie outside
+		 * the bounds (whatever the site weights), so every site is interior.
+		 */
+		final double cx = (minX + maxX) / 2, cy = (minY + maxY) / 2;
+		final double r = 20 * (Math.hypot(maxX - minX, maxY - minY) + Math.sqrt(maxWeight));
+		for (int k = 0; k < FRAME; k++) {
+			final double angle = Math.PI / 2 + k * 2 * Math.PI / FRAME;
+			vx[k] = cx + r * Math.cos(angle);
+			vy[k] = cy + r * Math.sin(angle);
+			vw[k] = 0;
+		}
+		final int t0 = newTriangle(0, 1, 2);
+		neighbours[3 * t0] = neighbours[3 * t0 + 1] = neighbours[3 * t0 + 2] = -1;
+		lastTriangle = t0;
+
+		new HilbertSort().sort(inserted);
+		for (Vertex site : inserted) {
+			insert(FRAME + site.getIndex());
+		}
+
+		Arrays.fill(powerCenters, 0, triangleCount, -1);
+		clipper.reset();
+		return clipper.assemble(n, this::buildCell);
+	}
+
+	private void init(int n) {
+		final int vertices = n + FRAME;
+		if (vx.length < vertices) {
+			vx = new double[vertices];
+			vy = new double[vertices];
+			vw = new double[vertices];
+			vertexTriangles = new int[vertices];
+			vertexStamps = new int[vertices];
+			startTriangles = new int[vertices];
+		}
+		Arrays.fill(vertexTriangles, -1);
+		Arrays.fill(vertexStamps, 0);
+		ensureTriangleCapacity(2 * n + 8);
+		triangleCount = 0;
+		freeTriangles.clear();
+		Arrays.fill(cavityStamps, 0);
+		stamp = 0;
+	}
+
+	/**
+	 * Inserts a vertex into the regular triangulation (unless it is redundant).
+	 */
+	private void insert(int p) {
+		final double px = vx[p], py = vy[p], pw = vw[p];
+		final int t0 = locate(px, py);
+		if (power(t0, px, py, pw) <= 0) {
+			return; // redundant: its lifted point lies above the lower hull
+		}
+
+		// grow the cavity of triangles in conflict with p
+		stamp++;
+		cavity.clear();
+		cavity.add(t0);
+		cavityStamps[t0] = stamp;
+		for (int i = 0; i < cavity.size(); i++) {
+			final int t = cavity.getInt(i);
+			for (int k = 0; k < 3; k++) {
+				final int n = neighbours[3 * t + k];
+				if (n != -1 && cavityStamps[n] != stamp && power(n, px, py, pw) > 0) {
+					cavityStamps[n] = stamp;
+					cavity.add(n);
+				}
+			}
+		}
+
+		// find the cavity boundary; enlarge the cavity until p sees all of it
+		boolean starShaped;
+		do {
+			starShaped = true;
+			boundary.clear();
+			for (int i = 0; i < cavity.size(); i++) {
+				final int t = cavity.getInt(i);
+				for (int k = 0; k < 3; k++) {
+					final int n = neighbours[3 * t + k];
+					if (n != -1 && cavityStamps[n] == stamp) {
+						continue;
+					}
+					final int a = triangleVertices[3 * t + (k + 1) % 3], b = triangleVertices[3 * t + (k + 2) % 3];
+					if (orient(a, b, px, py) <= 0 && n != -1) {
+						cavityStamps[n] = stamp;
+						cavity.add(n);
+						starShaped = false;
+					} else {
+						boundary.add(a);
+						boundary.add(b);
+						boundary.add(n);
+					}
+				}
+			}
+		} while (!starShaped);
+
+		// vertices inside the cavity (off its boundary) become redundant
+		for (int i = 0; i < boundary.size(); i += 3) {
+			vertexStamps[boundary.getInt(i)] = stamp;
+		}
+		for (int i = 0; i < cavity.size(); i++) {
+			final int t = cavity.getInt(i);
+			for (int k = 0; k < 3; k++) {
+				final int v = triangleVertices[3 * t + k];
+				if (vertexStamps[v] != stamp) {
+					vertexTriangles[v] = -1;
+				}
+			}
+		}
+		for (int i = 0; i < cavity.size(); i++) {
+			final int t = cavity.getInt(i);
+			triangleVertices[3 * t] = -1;
+			freeTriangles.add(t);
+		}
+
+		// fan the cavity boundary around p
+		for (int i = 0; i < boundary.size(); i += 3) {
+			final int a = boundary.getInt(i), b = boundary.getInt(i + 1), outer = boundary.getInt(i + 2);
+			final int t = newTriangle(a, b, p);
+			neighbours[3 * t + 2] = outer;
+			if (outer != -1) {
+				for (int k = 0; k < 3; k++) {
+					if (triangleVertices[3 * outer + k] != a && triangleVertices[3 * outer + k] != b) {
+						neighbours[3 * outer + k] = t;
+						break;
+					}
+				}
+			}
+			startTriangles[a] = t;
+			vertexTriangles[a] = t;
+		}
+		for (int i = 0; i < boundary.size(); i += 3) {
+			final int t = startTriangles[boundary.getInt(i)];
+			final int next = startTriangles[boundary.getInt(i + 1)]; // shares edge (b, p)
+			neighbours[3 * t] = next;
+			neighbours[3 * next + 1] = t;
+		}
+		vertexTriangles[p] = startTriangles[boundary.getInt(0)];
+		lastTriangle = vertexTriangles[p];
+	}
+
+	/**
+	 * Finds the triangle containing a point, by a randomised visibility walk from
+	 * the most recently created triangle.
+	 */
+	private int locate(double x, double y) {
+		int t = lastTriangle;
+		while (true) {
+			random ^= random << 13;
+			random ^= random >>> 7;
+			random ^= random << 17;
+			final int start = (int) ((random >>> 1) % 3);
+			boolean moved = false;
+			for (int j = 0; j < 3; j++) {
+				final int k = (start + j) % 3;
+				final int a = triangleVertices[3 * t + (k + 1) % 3], b = triangleVertices[3 * t + (k + 2) % 3];
+				if (orient(a, b, x, y) < 0 && neighbours[3 * t + k] != -1) {
+					t = neighbours[3 * t + k];
+					moved = true;
+					break;
+				}
+			}
+			if (!moved) {
+				return t;
+			}
+		}
+	}
+
+	/**
+	 * Builds the power cell of a site: the power centers of the triangles around
+	 * it, in counter-clockwise order, clipped to the bounds.
+	 */
+	private int buildCell(int site) {
+		final int v = FRAME + site;
+		final int start = vertexTriangles[v];
+		if (start == -1) {
+			return 0;
+		}
+		int t = start;
+		do {
+			int k = 0;
+			while (triangleVertices[3 * t + k] != v) {
+				k++;
+			}
+			final int id = powerCenter(t);
+			if (id != -1) {
+				clipper.addCellVertex(id);
+			}
+			t = neighbours[3 * t + (k + 1) % 3];
+		} while (t != start && t != -1);
+		return clipper.clipCell();
+	}
+
+	/**
+	 * @return the cell vertex id of a triangle's power center (the point having
+	 *         equal power distance to its three vertices), or -1 if the triangle
+	 *         is degenerate
+	 */
+	private int powerCenter(int t) {
+		if (powerCenters[t] != -1) {
+			return powerCenters[t];
+		}
+		final int a = triangleVertices[3 * t], b = triangleVertices[3 * t + 1], c = triangleVertices[3 * t + 2];
+		final double bx = vx[b] - vx[a], by = vy[b] - vy[a];
+		final double cx = vx[c] - vx[a], cy = vy[c] - vy[a];
+		final double d = 2 * (bx * cy - by * cx);
+		if (d == 0) {
+			return -1;
+		}
+		final double b2 = bx * bx + by * by + vw[a] - vw[b];
+		final double c2 = cx * cx + cy * cy + vw[a] - vw[c];
+		final int id = clipper.addVertex(vx[a] + (cy * b2 - by * c2) / d, vy[a] + (bx * c2 - cx * b2) / d);
+		powerCenters[t] = id;
+		return id;
+	}
+
+	/**
+	 * Power test: positive if a weighted point lies below the plane through the
+	 * lifted vertices of a triangle (so the triangle conflicts with the point).
+	 */
+	private double power(int t, double px, double py, double pw) {
+		final int a = triangleVertices[3 * t], b = triangleVertices[3 * t + 1], c = triangleVertices[3 * t + 2];
+		final double adx = vx[a] - px, ady = vy[a] - py;
+		final double bdx = vx[b] - px, bdy = vy[b] - py;
+		final double cdx = vx[c] - px, cdy = vy[c] - py;
+		final double alift = adx * adx + ady * ady - vw[a] + pw;
+		final double blift = bdx * bdx + bdy * bdy - vw[b] + pw;
+		final double clift = cdx * cdx + cdy * cdy - vw[c] + pw;
+		return alift * (bdx * cdy - bdy * cdx) + blift * (cdx * ady - cdy * adx) + clift * (adx * bdy - ady * bdx);
+	}
+
+	/**
+	 * @return positive if the point lies to the left of the directed edge a→b
+	 */
+	private double orient(int a, int b, double x, double y) {
+		return (vx[b] - vx[a]) * (y - vy[a]) - (vy[b] - vy[a]) * (x - vx[a]);
+	}
+
+	private int newTriangle(int a, int b, int c) {
+		final int t;
+		if (!freeTriangles.isEmpty()) {
+			t = freeTriangles.popInt();
+		} else {
+			ensureTriangleCapacity(triangleCount + 1);
+			t = triangleCount++;
+		}
+		triangleVertices[3 * t] = a;
+		triangleVertices[3 * t + 1] = b;
+		triangleVertices[3 * t + 2] = c;
+		return t;
+	}
+
+	private void ensureTriangleCapacity(int capacity) {
+		if (cavityStamps.length < capacity) {
+			final int size = Math.max(capacity, cavityStamps.length * 2);
+			triangleVertices = Arrays.copyOf(triangleVertices, size * 3);
+			neighbours = Arrays.copyOf(neighbours, size * 3);
+			powerCenters = Arrays.copyOf(powerCenters, size);
+			cavityStamps = Arrays.copyOf(cavityStamps, size);
+		}
+	}
+
+}
@@ -0,0 +1,251 @@
+package micycle.pgs.commons;
+
+import org.locationtech.jts.algorithm.locate.IndexedPointInAreaLocator;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Location;
+import org.locationtech.jts.geom.Polygonal;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.operation.distance.IndexedFacetDistance;
+
+import micycle.pgs.PGS_Conversion;
+import processing.core.PShape;
+import processing.core.PVector;
+
+/**
+ * A shape prepared for fast, repeated predicate and distance queries against
+ * it.
+ * <p>
+ * The stateless methods of <code>PGS_ShapePredicates</code> convert their
+ * inputs into geometries on every call, and discard any spatial index built
+ * while answering. A <code>PreparedPShape</code> converts its shape once, and
+ * keeps the indexes that accelerate queries against it:
+ * <ul>
+ * <li>a {@link PreparedGeometry}, for spatial predicates against other
+ * shapes;</li>
+ * <li>an {@link IndexedPointInAreaLocator}, for point-in-shape tests (for
+ * polygonal shapes);</li>
+ * <li>an {@link IndexedFacetDistance}, for distance queries (built the first
+ * time a distance is queried).</li>
+ * </ul>
+ * This makes it well suited to hit-testing the same shape many times (such as
+ * against the mouse position every frame). The prepared shape reflects the
+ * shape at the time it was prepared; it does not observe later changes to the
+ * PShape. Queries may be made concurrently from multiple threads.
+ *
+ * @author Michael Carleton
+ * @since 1.5.0
+ */
+public final class PreparedPShape {
+
+	private final PShape shape;
+	private final Geometry geometry;
+	private final PreparedGeometry prepared;
+	@Nullable
+	private final IndexedPointInAreaLocator locator;
+	private volatile IndexedFacetDistance facetDistance;
+
+	/**
+	 * Prepares a shape for repeated queries.
+	 *
+	 * @param shape the shape to prepare
+	 */
+	public PreparedPShape(PShape shape) {
+		this(shape, PGS_Conversion.fromPShape(shape));
+	}
+
+	/**
+	 * Prepares a geometry for repeated queries.
+	 *
+	 * @param geometry the geometry to prepare
+	 */
+	public PreparedPShape(Geometry geometry) {
+		this(null, geometry);
+	}
+
+	private PreparedPShape(PShape shape, Geometry geometry) {
+		this.shape = shape;
+		this.geometry = geometry;
+		this.prepared = PreparedGeometryFactory.prepare(geometry);
+		this.locator = geometry instanceof Polygonal || geometry instanceof LinearRing ? new IndexedPointInAreaLocator(geometry) : null;
+	}
+
+	/**
+	 * @return the prepared shape (converted from the prepared geometry, if the
+	 *         instance was created from a geometry)
+	 */
+	public PShape getShape() {
+		return shape != null ? shape : PGS_Conversion.toPShape(geometry);
+	}
+
+	/**
+	 * @return the geometry of the prepared shape (which should not be mutated)
+	 */
+	public Geometry getGeometry() {
+		return geometry;
+	}
+
+	/**
+	 * Determines whether the prepared shape contains a point. Points that lie on
+	 * the boundary of the shape are considered to be contained.
+	 *
+	 * @param point the query point
+	 * @return true if the point lies inside or on the boundary of the shape
+	 */
+	public boolean containsPoint(PVector point) {
+		return containsPoint(point.x, point.y);
+	}
+
+	/**
+	 * Determines whether the prepared shape contains a point. Points that lie on
+	 * the boundary of the shape are considered to be contained.
+	 *
+	 * @param x x coordinate of the query point
+	 * @param y y coordinate of the query point
+	 * @return true if the point lies inside or on the boundary of the shape
+	 */
+	public boolean containsPoint(double x, double y) {
+		if (locator == null) { // lineal, puntal or mixed
+			return prepared.covers(geometry.getFactory().createPoint(new Coordinate(x, y)));
+		}
+		return locator.locate(new Coordinate(x, y)) != Location.EXTERIOR;
+	}
+
+	/**
+	 * Determines whether the prepared shape fully contains another shape. Points of
+	 * the other shape that lie on the boundary of the prepared shape are considered
+	 * to be contained (this matches <code>PGS_ShapePredicates.contains()</code>).
+	 *
+	 * @param other the inner shape
+	 * @return true if every point of the other shape lies in the prepared shape
+	 */
+	public boolean contains(PShape other) {
+		return prepared.covers(PGS_Conversion.fromPShape(other));
+	}
+
+	/**
+	 * Determines whether the prepared shape is fully contained in another shape.
+	 *
+	 * @param other the outer shape
+	 * @return true if every point of the prepared shape lies in the other shape
+	 */
+	public boolean within(PShape other) {
+		return prepared.coveredBy(PGS_Conversion.fromPShape(other));
+	}
+
+	/**
+	 * Determines whether the prepared shape and another shape have at least one
+	 * point in common.
+	 *
+	 * @param other the other shape
+	 * @return true if the shapes intersect
+	 */
+	public boolean intersects(PShape other) {
+		return prepared.intersects(PGS_Conversion.fromPShape(other));
+	}
+
+	/**
+	 * Determines whether the prepared shape and another shape have at least one
+	 * point in common, but their interiors do not intersect.
+	 *
+	 * @param other the other shape
+	 * @return true if the shapes touch
+	 */
+	public boolean touches(PShape other) {
+		return prepared.touches(PGS_Conversion.fromPShape(other));
+	}
+
+	/**
+	 * Determines whether the interiors of the prepared shape and another shape
+	 * intersect, while neither shape contains the other.
+	 *
+	 * @param other the other shape
+	 * @return true if the shapes overlap
+	 */
+	public boolean overlaps(PShape other) {
+		return prepared.overlaps(PGS_Conversion.fromPShape(other));
+	}
+
+	/**
+	 * Determines whether the prepared shape and another shape have no point in
+	 * common.
+	 *
+	 * @param other the other shape
+	 * @return true if the shapes are disjoint
+	 */
+	public boolean disjoint(PShape other) {
+		return prepared.disjoint(PGS_Conversion.fromPShape(other));
+	}
+
+	/**
+	 * Computes the minimum distance between the prepared shape and a point. The
+	 * distance is 0 if the shape contains the point.
+	 *
+	 * @param point the query point
+	 * @return the distance between the shape and the point
+	 */
+	public double distance(PVector point) {
+		if (containsPoint(point)) {
+			return 0;
+		}
+		return getFacetDistance().distance(geometry.getFactory().createPoint(new Coordinate(point.x, point.y)));
+	}
+
+	/**
+	 * Computes the minimum distance between the prepared shape and another shape.
+	 * The distance is 0 if the shapes intersect.
+	 *
+	 * @param other the other shape
+	 * @return the distance between the shapes
+	 */
+	public double distance(PShape other) {
+		final Geometry g = PGS_Conversion.fromPShape(other);
+		if (prepared.intersects(g)) {
+			return 0;
+		}
+		return getFacetDistance().distance(g);
+	}
+
+	/**
+	 * Determines whether another shape lies within a given distance of the
+	 * prepared shape.
+	 *
+	 * @param other    the other shape
+	 * @param distance the distance threshold
+	 * @return true if the distance between the shapes is at most the given
+	 *         distance
+	 */
+	public boolean isWithinDistance(PShape other, double distance) {
+		final Geometry g = PGS_Conversion.fromPShape(other);
+		return prepared.intersects(g) || getFacetDistance().isWithinDistance(g, distance);
+	}
+
+	/**
+	 * Finds the point on the boundary of the prepared shape that is closest to a
+	 * query point.
+	 *
+	 * @param point the query point
+	 * @return the closest boundary point
+	 */
+	public PVector nearestBoundaryPoint(PVector point) {
+		final Coordinate c = getFacetDistance().nearestPoints(geometry.getFactory().createPoint(new Coordinate(point.x, point.y)))[0];
+		return new PVector((float) c.x, (float) c.y);
+	}
+
+	private IndexedFacetDistance getFacetDistance() {
+		IndexedFacetDistance d = facetDistance;
+		if (d == null) {
+			synchronized (this) {
+				d = facetDistance;
+				if (d == null) {
+					d = new IndexedFacetDistance(geometry);
+					facetDistance = d;
+				}
+			}
+		}
+		return d;
+	}
+
+}
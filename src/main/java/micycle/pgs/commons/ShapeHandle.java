@@ -0,0 +1,102 @@
+package micycle.pgs.commons;
+
+import org.locationtech.jts.geom.Geometry;
+
+import micycle.pgs.PGS_Conversion;
+import processing.core.PShape;
+
+/**
+ * Holds a shape in both its <i>Processing</i> {@code PShape} and <i>JTS</i>
+ * {@code Geometry} forms, creating either representation lazily (at most once)
+ * from the other when it is first requested.
+ * <p>
+ * Most PGS methods convert their PShape inputs into geometries and their
+ * geometry results back into PShapes. When many operations are chained on the
+ * same shape, these conversions can dominate the cost of the chain. Methods
+ * that accept and return a {@code ShapeHandle} operate on the geometry form
+ * directly, so a chain of such calls converts only at its edges: once when a
+ * PShape is first wrapped, and once when {@link #getShape()} is finally
+ * called.
+ * <p>
+ * Handles are immutable views of a shape: neither the wrapped PShape nor the
+ * wrapped Geometry should be modified after the handle has been created.
+ * Handles are not thread-safe.
+ *
+ * @author Michael Carleton
+ * @since 1.5.0
+ */
+public final class ShapeHandle {
+
+	private Geometry geometry;
+	private PShape shape;
+
+	private ShapeHandle(Geometry geometry, PShape shape) {
+		this.geometry = geometry;
+		this.shape = shape;
+	}
+
+	/**
+	 * Creates a handle wrapping a PShape. The shape's geometry is created on
+	 * demand.
+	 *
+	 * @param shape the shape to wrap
+	 * @return a new handle
+	 */
+	public static ShapeHandle of(PShape shape) {
+		return new ShapeHandle(null, shape);
+	}
+
+	/**
+	 * Creates a handle wrapping a JTS geometry. The geometry's PShape is created on
+	 * demand.
+	 *
+	 * @param geometry the geometry to wrap
+	 * @return a new handle
+	 */
+	public static ShapeHandle of(Geometry geometry) {
+		return new ShapeHandle(geometry, null);
+	}
+
+	/**
+	 * Returns the JTS geometry of the shape, converting it from the PShape the
+	 * first time this method is called on a handle created from a PShape.
+	 *
+	 * @return the geometry (which should not be mutated)
+	 */
+	public Geometry getGeometry() {
+		if (geometry == null) {
+			geometry = PGS_Conversion.fromPShape(shape);
+		}
+		return geometry;
+	}
+
+	/**
+	 * Returns the PShape of the shape, converting it from the geometry the first
+	 * time this method is called on a handle created from a geometry.
+	 *
+	 * @return the PShape
+	 */
+	public PShape getShape() {
+		if (shape == null) {
+			shape = PGS_Conversion.toPShape(geometry);
+		}
+		return shape;
+	}
+
+	/**
+	 * @return whether the geometry form of the shape has been created (or was
+	 *         given)
+	 */
+	public boolean hasGeometry() {
+		return geometry != null;
+	}
+
+	/**
+	 * @return whether the PShape form of the shape has been created (or was
+	 *         given)
+	 */
+	public boolean hasShape() {
+		return shape != null;
+	}
+
+}
@@ -0,0 +1,349 @@
+package micycle.pgs.commons;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import processing.core.PShape;
+
+/**
+ * Builds the bounded Voronoi diagram of a very large point set tile by tile,
+ * so that the triangulation and cells of only a few tiles are held in memory at
+ * any time.
+ * <p>
+ * The bounds are partitioned into square tiles. The diagram of each tile is
+ * built from the points within the tile and a halo margin around it, and only
+ * the cells of points inside the tile (its core) are kept. A kept cell is
+ * <i>certified</i> correct if, for each of its vertices, the circle centered on
+ * the vertex and passing through the cell's site lies within the halo region
+ * (so no point outside the region could alter the cell); when any cell fails
+ * certification, the tile is rebuilt with a doubled halo. The cells of every
+ * tile are therefore identical to those of the whole diagram.
+ * <p>
+ * Tiles are delivered as {@link FlatVoronoi.Diagram diagrams}, whose site
+ * indices refer to the whole point set; cells are not shared between tiles.
+ * Only the packed point coordinates (and an index of them by tile) must fit in
+ * memory.
+ *
+ * @author Michael Carleton
+ * @since 1.5.0
+ */
+public final class TiledVoronoi {
+
+	/** Initial halo margin, in multiples of the tile's average point spacing. */
+	private static final double HALO_SPACINGS = 4;
+
+	private final double[] points;
+	private final double[] bounds;
+	private final double minX, minY, maxX, maxY;
+	private final double tileSize;
+	private final int columns, rows;
+	/** Offset of each tile's first point within {@link #tilePoints}. */
+	private final int[] tileOffsets;
+	/** Point indices, grouped by the tile containing them. */
+	private final int[] tilePoints;
+	/**
+	 * Idle Voronoi builders (each retains its triangulation between tiles of
+	 * similar point density).
+	 */
+	private final Queue<FlatVoronoi> builders = new ConcurrentLinkedQueue<>();
+
+	/**
+	 * Partitions a point set into tiles.
+	 *
+	 * @param points   interleaved x,y point coordinates (the array is not copied)
+	 * @param bounds   an array of the form [minX, minY, maxX, maxY] defining the
+	 *                 bounds of the diagram. Points outside the bounds are
+	 *                 ignored.
+	 * @param tileSize side length of the square tiles. Tiles should contain many
+	 *                 (thousands of) points each, for the halo to be a small
+	 *                 fraction of each tile.
+	 */
+	public TiledVoronoi(double[] points, double[] bounds, double tileSize) {
+		if (!(bounds[2] > bounds[0] && bounds[3] > bounds[1])) {
+			throw new IllegalArgumentException("Bounds must have a positive width and height.");
+		}
+		if (!(tileSize > 0)) {
+			throw new IllegalArgumentException("tileSize must be positive.");
+		}
+		this.points = points;
+		this.bounds = bounds.clone();
+		minX = bounds[0];
+		minY = bounds[1];
+		maxX = bounds[2];
+		maxY = bounds[3];
+		this.tileSize = tileSize;
+		columns = (int) Math.max(1, Math.ceil((maxX - minX) / tileSize));
+		rows = (int) Math.max(1, Math.ceil((maxY - minY) / tileSize));
+
+		// counting sort of point indices by tile
+		final int n = points.length / 2;
+		final int[] pointTiles = new int[n];
+		tileOffsets = new int[columns * rows + 1];
+		for (int i = 0; i < n; i++) {
+			final int tile = tileOf(points[2 * i], points[2 * i + 1]);
+			pointTiles[i] = tile;
+			if (tile != -1) {
+				tileOffsets[tile + 1]++;
+			}
+		}
+		for (int t = 0; t < columns * rows; t++) {
+			tileOffsets[t + 1] += tileOffsets[t];
+		}
+		tilePoints = new int[tileOffsets[columns * rows]];
+		final int[] next = Arrays.copyOf(tileOffsets, columns * rows);
+		for (int i = 0; i < n; i++) {
+			if (pointTiles[i] != -1) {
+				tilePoints[next[pointTiles[i]]++] = i;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of tiles (including any without points)
+	 */
+	public int getTileCount() {
+		return columns * rows;
+	}
+
+	/**
+	 * Builds the diagram of a single tile: the Voronoi cells of the points that
+	 * lie within the tile.
+	 *
+	 * @param tile tile index, in [0, {@link #getTileCount()})
+	 * @return the cells of the tile's points (whose site indices refer to the
+	 *         whole point set)
+	 */
+	public FlatVoronoi.Diagram buildTile(int tile) {
+		final int coreCount = tileOffsets[tile + 1] - tileOffsets[tile];
+		if (coreCount == 0) {
+			return new FlatVoronoi.Diagram(new FlatMesh(new double[0], new int[1], new int[0], null), new int[0]);
+		}
+		final double x0 = minX + (tile % columns) * tileSize;
+		final double y0 = minY + (tile / columns) * tileSize;
+		final double x1 = Math.min(maxX, x0 + tileSize);
+		final double y1 = Math.min(maxY, y0 + tileSize);
+
+		FlatVoronoi builder = builders.poll();
+		if (builder == null) {
+			builder = new FlatVoronoi(bounds);
+		}
+		try {
+			double halo = HALO_SPACINGS * Math.sqrt((x1 - x0) * (y1 - y0) / coreCount);
+			while (true) {
+				final double hx0 = Math.max(minX, x0 - halo), hy0 = Math.max(minY, y0 - halo);
+				final double hx1 = Math.min(maxX, x1 + halo), hy1 = Math.min(maxY, y1 + halo);
+				final boolean coversBounds = hx0 == minX && hy0 == minY && hx1 == maxX && hy1 == maxY;
+
+				final int[] sites = gather(tile, hx0, hy0, hx1, hy1);
+				final double[] coords = new double[sites.length * 2];
+				for (int i = 0; i < sites.length; i++) {
+					coords[2 * i] = points[2 * sites[i]];
+					coords[2 * i + 1] = points[2 * sites[i] + 1];
+				}
+				// the builder clips to the whole bounds, but its triangulation is sized for the region
+				final FlatVoronoi.Diagram local = builder.build(coords, Math.sqrt((hx1 - hx0) * (hy1 - hy0) / sites.length));
+				final FlatVoronoi.Diagram core = extractCore(local, coreCount, sites, coords, coversBounds ? null : new double[] { hx0, hy0, hx1, hy1 });
+				if (core != null) {
+					return core;
+				}
+				halo *= 2;
+			}
+		} finally {
+			builders.add(builder);
+		}
+	}
+
+	/**
+	 * Builds every tile (concurrently), passing each non-empty tile diagram to a
+	 * consumer as it is completed.
+	 *
+	 * @param consumer receives tile diagrams; it is called from multiple threads
+	 *                 so must be thread-safe
+	 */
+	public void forEachTile(Consumer<FlatVoronoi.Diagram> consumer) {
+		IntStream.range(0, getTileCount()).parallel().forEach(t -> {
+			final FlatVoronoi.Diagram diagram = buildTile(t);
+			if (diagram.sites.length > 0) {
+				consumer.accept(diagram);
+			}
+		});
+	}
+
+	/**
+	 * Builds every tile (concurrently), passing each Voronoi cell to a consumer as
+	 * its tile is completed.
+	 *
+	 * @param consumer receives cells; the <code>.name</code> of each cell is set
+	 *                 to the index of its site. It is called from multiple threads
+	 *                 so must be thread-safe.
+	 */
+	public void forEachCell(Consumer<PShape> consumer) {
+		forEachTile(diagram -> {
+			final PShape cells = toCells(diagram);
+			for (int i = 0; i < cells.getChildCount(); i++) {
+				consumer.accept(cells.getChild(i));
+			}
+		});
+	}
+
+	/**
+	 * Returns the Voronoi cells as a lazily evaluated iterable: tiles are built
+	 * (one at a time, on the iterating thread) only as their cells are requested.
+	 * This suits streaming writers, such as
+	 * <code>PGS_Conversion.toWKB(Iterable, OutputStream)</code>.
+	 *
+	 * @return the cells of all tiles, tile after tile; the <code>.name</code> of
+	 *         each cell is set to the index of its site
+	 */
+	public Iterable<PShape> cells() {
+		return () -> new Iterator<PShape>() {
+
+			private int tile = 0;
+			private PShape cells;
+			private int next;
+
+			@Override
+			public boolean hasNext() {
+				while ((cells == null || next == cells.getChildCount()) && tile < getTileCount()) {
+					cells = toCells(buildTile(tile++));
+					next = 0;
+				}
+				return cells != null && next < cells.getChildCount();
+			}
+
+			@Override
+			public PShape next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return cells.getChild(next++);
+			}
+		};
+	}
+
+	private int tileOf(double x, double y) {
+		if (!(x >= minX && x <= maxX && y >= minY && y <= maxY)) {
+			return -1;
+		}
+		final int column = Math.min(columns - 1, (int) ((x - minX) / tileSize));
+		final int row = Math.min(rows - 1, (int) ((y - minY) / tileSize));
+		return row * columns + column;
+	}
+
+	/**
+	 * Collects the points within a (halo) region around a tile: the tile's own
+	 * points first, followed by those of neighbouring tiles.
+	 */
+	private int[] gather(int tile, double hx0, double hy0, double hx1, double hy1) {
+		final int c0 = Math.max(0, (int) ((hx0 - minX) / tileSize)), c1 = Math.min(columns - 1, (int) ((hx1 - minX) / tileSize));
+		final int r0 = Math.max(0, (int) ((hy0 - minY) / tileSize)), r1 = Math.min(rows - 1, (int) ((hy1 - minY) / tileSize));
+		int capacity = 0;
+		for (int r = r0; r <= r1; r++) {
+			capacity += tileOffsets[r * columns + c1 + 1] - tileOffsets[r * columns + c0];
+		}
+		final int[] sites = new int[capacity];
+		int k = 0;
+		for (int i = tileOffsets[tile]; i < tileOffsets[tile + 1]; i++) {
+			sites[k++] = tilePoints[i];
+		}
+		for (int r = r0; r <= r1; r++) {
+			for (int c = c0; c <= c1; c++) {
+				final int t = r * columns + c;
+				if (t == tile) {
+					continue;
+				}
+				for (int i = tileOffsets[t]; i < tileOffsets[t + 1]; i++) {
+					final int p = tilePoints[i];
+					final double x = points[2 * p], y = points[2 * p + 1];
+					if (x >= hx0 && x <= hx1 && y >= hy0 && y <= hy1) {
+						sites[k++] = p;
+					}
+				}
+			}
+		}
+		return Arrays.copyOf(sites, k);
+	}
+
+	/**
+	 * Extracts the cells of core sites (the first <code>coreCount</code> local
+	 * sites) from a tile diagram, remapping their site indices to the whole point
+	 * set.
+	 *
+	 * @param region the halo region, or null if it spans the whole bounds
+	 * @return the core diagram, or null if any core cell could not be certified
+	 */
+	private FlatVoronoi.Diagram extractCore(FlatVoronoi.Diagram local, int coreCount, int[] sites, double[] coords,
+			double[] region) {
+		final FlatMesh mesh = local.mesh;
+		int faces = 0;
+		int faceVertices = 0;
+		for (int f = 0; f < mesh.getFaceCount(); f++) {
+			final int site = local.sites[f];
+			if (site >= coreCount) {
+				continue;
+			}
+			if (region != null) {
+				final double sx = coords[2 * site], sy = coords[2 * site + 1];
+				for (int i = 0; i < mesh.getFaceSize(f); i++) {
+					final int v = mesh.getFaceVertex(f, i);
+					final double x = mesh.getX(v), y = mesh.getY(v);
+					final double radius = Math.hypot(x - sx, y - sy);
+					// sides of the region on the bounds are open (no points lie beyond them)
+					if ((region[0] > minX && x - radius < region[0]) || (region[2] < maxX && x + radius > region[2])
+							|| (region[1] > minY && y - radius < region[1]) || (region[3] < maxY && y + radius > region[3])) {
+						return null;
+					}
+				}
+			}
+			faces++;
+			faceVertices += mesh.getFaceSize(f);
+		}
+
+		final int[] coreSites = new int[faces];
+		final int[] faceOffsets = new int[faces + 1];
+		final int[] vertexIndices = new int[faceVertices];
+		final int[] remap = new int[mesh.getVertexCount()];
+		Arrays.fill(remap, -1);
+		int vertices = 0;
+		int face = 0;
+		int k = 0;
+		for (int f = 0; f < mesh.getFaceCount(); f++) {
+			final int site = local.sites[f];
+			if (site >= coreCount) {
+				continue;
+			}
+			coreSites[face] = sites[site];
+			faceOffsets[face++] = k;
+			for (int i = 0; i < mesh.getFaceSize(f); i++) {
+				final int v = mesh.getFaceVertex(f, i);
+				if (remap[v] == -1) {
+					remap[v] = vertices++;
+				}
+				vertexIndices[k++] = remap[v];
+			}
+		}
+		faceOffsets[faces] = k;
+		final double[] vertexCoords = new double[vertices * 2];
+		for (int v = 0; v < remap.length; v++) {
+			if (remap[v] != -1) {
+				vertexCoords[2 * remap[v]] = mesh.getX(v);
+				vertexCoords[2 * remap[v] + 1] = mesh.getY(v);
+			}
+		}
+		return new FlatVoronoi.Diagram(new FlatMesh(vertexCoords, faceOffsets, vertexIndices, null), coreSites);
+	}
+
+	private static PShape toCells(FlatVoronoi.Diagram diagram) {
+		final PShape cells = diagram.mesh.toPShape();
+		for (int i = 0; i < cells.getChildCount(); i++) {
+			cells.getChild(i).setName(Integer.toString(diagram.sites[i]));
+		}
+		return cells;
+	}
+
+}
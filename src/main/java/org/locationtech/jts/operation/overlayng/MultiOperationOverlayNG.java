@@ -67,6 +67,8 @@ public class MultiOperationOverlayNG {
 			init();
 		}
 
+		// clear result area marks left by any previously extracted result
+		graph.getEdges().forEach(OverlayEdge::unmarkFromResultAreaBoth);
 		labeller.markResultAreaEdges(opCode);
 		labeller.unmarkDuplicateEdgesFromResultArea();
 		return extractResult(graph.getResultAreaEdges(), opCode);
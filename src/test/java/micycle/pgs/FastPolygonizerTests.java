@@ -2,6 +2,7 @@ package micycle.pgs;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static micycle.pgs.commons.FastPolygonizer.polygonize;
+import static micycle.pgs.commons.FastPolygonizer.polygonizeMesh;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -20,6 +21,7 @@ import org.locationtech.jts.noding.SegmentString;
 import org.locationtech.jts.operation.polygonize.Polygonizer;
 
 import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+import micycle.pgs.commons.FlatMesh;
 import micycle.pgs.commons.PEdge;
 import processing.core.PShape;
 
@@ -97,6 +99,23 @@ class FastPolygonizerTests {
 		assertEquals(1, out.getChildCount());
 	}
 
+	@Test
+	void testPolygonizeMesh() {
+		List<PEdge> edges = new ArrayList<>();
+		edges.add(new PEdge(0, 0, 10, 0));
+		edges.add(new PEdge(10, 0, 10, 10));
+		edges.add(new PEdge(10, 10, 0, 10));
+		edges.add(new PEdge(0, 10, 0, 0));
+		edges.add(new PEdge(0, 0, 10, 10)); // diagonal
+		edges.add(new PEdge(10, 10, 20, 20)); // dangling
+
+		FlatMesh mesh = polygonizeMesh(edges);
+		assertEquals(polygonize(edges).getChildCount(), mesh.getFaceCount());
+		assertEquals(2, mesh.getFaceCount());
+		assertEquals(4, mesh.getVertexCount()); // shared vertices are merged
+		assertEquals(6, mesh.vertexIndices.length);
+	}
+
 	@Test
 	@Disabled
 	void testRobustnessRandomly() {
@@ -12,6 +12,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import micycle.pgs.PGS_Coloring.ColoringAlgorithm;
+import micycle.pgs.commons.FlatMesh;
 import processing.core.PConstants;
 import processing.core.PShape;
 
@@ -60,6 +61,44 @@ class PGS_ColoringTests {
 		assertNotSame(colorClasses.get(0), colorClasses.get(1));
 	}
 
+	@Test
+	void testFlatMeshColoring() {
+		final FlatMesh mesh = FlatMesh.fromPShape(GROUP_SHAPE);
+		assertEquals(2, mesh.getFaceCount());
+		assertEquals(4, mesh.getVertexCount()); // shared vertices are merged
+		assertEquals(1, PGS_Conversion.toDualGraph(mesh).edgeSet().size());
+
+		final int[] coloring = PGS_Coloring.colorMesh(mesh, ColoringAlgorithm.RLF);
+		assertEquals(2, coloring.length);
+		assertNotEquals(coloring[0], coloring[1]);
+
+		final PShape colored = PGS_Coloring.colorMesh(mesh, ColoringAlgorithm.RLF, new int[] { 1, 2 }).toPShape();
+		assertEquals(2, colored.getChildCount());
+		assertNotEquals(PGS_Conversion.getFillColor(colored.getChild(0)), PGS_Conversion.getFillColor(colored.getChild(1)));
+	}
+
+	@Test
+	void testFlatMeshFromPShape() {
+		GROUP_SHAPE.getChild(1).translate(10, 0); // face matrices are applied
+		FlatMesh mesh = FlatMesh.fromPShape(GROUP_SHAPE);
+		assertEquals(6, mesh.getVertexCount());
+		assertEquals(20, mesh.getX(mesh.getFaceVertex(1, 1)));
+
+		final PShape holed = new PShape(PShape.PATH);
+		holed.beginShape();
+		holed.vertex(0, 0);
+		holed.vertex(10, 0);
+		holed.vertex(10, 10);
+		holed.beginContour();
+		holed.vertex(2, 2);
+		holed.vertex(4, 2);
+		holed.vertex(4, 4);
+		holed.endContour();
+		holed.endShape(PConstants.CLOSE);
+		GROUP_SHAPE.addChild(holed);
+		assertThrows(IllegalArgumentException.class, () -> FlatMesh.fromPShape(GROUP_SHAPE));
+	}
+
 	@Test
 	void testNonMeshColoring() {
 		/*
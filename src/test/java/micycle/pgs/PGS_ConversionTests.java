@@ -4,20 +4,35 @@ import static micycle.pgs.PGS_Conversion.fromPShape;
 import static micycle.pgs.PGS_Conversion.toPShape;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.awt.Shape;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.jupiter.api.Test;
+import org.locationtech.jts.algorithm.distance.DiscreteHausdorffDistance;
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.geom.LinearRing;
 import org.locationtech.jts.geom.Polygon;
 import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequence;
 
 import micycle.pgs.color.ColorUtils;
+import micycle.pgs.color.Colors;
 import processing.core.PConstants;
 import processing.core.PShape;
 import processing.core.PVector;
@@ -550,6 +565,265 @@ class PGS_ConversionTests {
 		assertTrue(PGS_ShapePredicates.equalsNorm(shape, in));
 	}
 
+	@Test
+	void testConversionCache() {
+		final PShape shape = new PShape(PShape.GEOMETRY);
+		shape.beginShape();
+		shape.vertex(0, 0);
+		shape.vertex(10, 0);
+		shape.vertex(0, 10);
+		shape.endShape(PShape.CLOSE);
+
+		PGS_Conversion.CACHE_CONVERSIONS = true;
+		PGS_Conversion.clearConversionCache();
+		try {
+			final Geometry g1 = fromPShape(shape);
+			final Geometry g2 = fromPShape(shape);
+			assertNotSame(g1, g2); // callers receive copies
+			assertTrue(g1.equalsExact(g2));
+			assertEquals(1, PGS_Conversion.getConversionCacheHits());
+			assertEquals(1, PGS_Conversion.getConversionCacheMisses());
+
+			shape.setVertex(2, 0, 20); // mutation changes stamp
+			final Geometry g3 = fromPShape(shape);
+			assertFalse(g1.equalsExact(g3));
+			assertEquals(2, PGS_Conversion.getConversionCacheMisses());
+
+			PGS_Conversion.PACKED_COORDINATES = true; // flags are part of the stamp
+			assertTrue(((Polygon) fromPShape(shape)).getExteriorRing().getCoordinateSequence() instanceof PackedCoordinateSequence);
+			assertEquals(3, PGS_Conversion.getConversionCacheMisses());
+			PGS_Conversion.PACKED_COORDINATES = false;
+
+			PGS_Conversion.invalidateConversionCache(shape);
+			fromPShape(shape);
+			assertEquals(4, PGS_Conversion.getConversionCacheMisses());
+
+			// a mutation whose stamp collides with the cached one is still a miss
+			final int x = Float.floatToIntBits(shape.getVertexX(1)), y = Float.floatToIntBits(5);
+			shape.setVertex(1, Float.intBitsToFloat(x), Float.intBitsToFloat(y));
+			final Geometry g4 = fromPShape(shape);
+			shape.setVertex(1, Float.intBitsToFloat(x + 1), Float.intBitsToFloat(y - 31));
+			final Geometry g5 = fromPShape(shape);
+			assertEquals(6, PGS_Conversion.getConversionCacheMisses());
+			assertFalse(g4.equalsExact(g5));
+		} finally {
+			PGS_Conversion.PACKED_COORDINATES = false;
+			PGS_Conversion.CACHE_CONVERSIONS = false;
+			PGS_Conversion.clearConversionCache();
+		}
+	}
+
+	@Test
+	void testConversionCacheStyle() {
+		final PShape shape = new PShape(PShape.GEOMETRY);
+		shape.beginShape();
+		shape.vertex(0, 0);
+		shape.vertex(10, 0);
+		shape.vertex(0, 10);
+		shape.endShape(PShape.CLOSE);
+
+		PGS_Conversion.CACHE_CONVERSIONS = true;
+		PGS_Conversion.clearConversionCache();
+		try {
+			shape.setFill(Colors.PINK);
+			final Geometry g1 = fromPShape(shape);
+			shape.setFill(Colors.WHITE);
+			final Geometry g2 = fromPShape(shape); // cache hit, different style
+			assertEquals(1, PGS_Conversion.getConversionCacheHits());
+
+			assertEquals(Colors.PINK, PGS_Conversion.getFillColor(PGS_Conversion.toPShape(g1)));
+			assertEquals(Colors.WHITE, PGS_Conversion.getFillColor(PGS_Conversion.toPShape(g2)));
+		} finally {
+			PGS_Conversion.CACHE_CONVERSIONS = false;
+			PGS_Conversion.clearConversionCache();
+		}
+	}
+
+	@Test
+	void testPackedConversion() {
+		final PShape shape = new PShape(PShape.GEOMETRY);
+		shape.beginShape();
+		shape.vertex(0, 0);
+		shape.vertex(10, 0);
+		shape.vertex(0, 10);
+		shape.vertex(10, 10);
+		shape.beginContour();
+		shape.vertex(2, 2);
+		shape.vertex(8, 2);
+		shape.vertex(2, 8);
+		shape.vertex(8, 8);
+		shape.endContour();
+		shape.endShape(PShape.CLOSE);
+
+		final Geometry g = fromPShape(shape);
+		PGS_Conversion.PACKED_COORDINATES = true;
+		final Geometry packed;
+		try {
+			packed = fromPShape(shape);
+		} finally {
+			PGS_Conversion.PACKED_COORDINATES = false;
+		}
+		assertTrue(((Polygon) packed).getExteriorRing().getCoordinateSequence() instanceof PackedCoordinateSequence);
+		assertTrue(g.equalsExact(packed));
+
+		final PShape out = toPShape(packed);
+		assertEquals(shape.getVertexCount(), out.getVertexCount());
+	}
+
+	@Test
+	void testParallelGroupConversion() {
+		final GeometryFactory gf = new GeometryFactory();
+		final List<Geometry> squares = new ArrayList<>();
+		for (int i = 0; i < 64; i++) {
+			squares.add(gf.toGeometry(new Envelope(i * 10, i * 10 + 5, 0, 5)));
+		}
+		final PShape sequentialGroup = toPShape(squares);
+		final Geometry sequential = fromPShape(sequentialGroup);
+
+		final int threshold = PGS_Conversion.PARALLEL_CONVERSION_THRESHOLD;
+		PGS_Conversion.PARALLEL_CONVERSION_THRESHOLD = 2;
+		try {
+			final PShape parallelGroup = toPShape(squares);
+			assertEquals(sequentialGroup.getChildCount(), parallelGroup.getChildCount());
+			for (int i = 0; i < parallelGroup.getChildCount(); i++) { // order is preserved
+				assertEquals(sequentialGroup.getChild(i).getVertexX(0), parallelGroup.getChild(i).getVertexX(0));
+			}
+			assertTrue(sequential.equalsExact(fromPShape(parallelGroup)));
+		} finally {
+			PGS_Conversion.PARALLEL_CONVERSION_THRESHOLD = threshold;
+		}
+	}
+
+	@Test
+	void testStreamingGeoJSON() throws IOException {
+		final GeometryFactory gf = new GeometryFactory();
+		final List<PShape> shapes = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			shapes.add(toPShape(gf.toGeometry(new Envelope(i * 10, i * 10 + 5, 0, 5))));
+		}
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PGS_Conversion.toGeoJSON(shapes, out);
+		final List<PShape> in = new ArrayList<>();
+		PGS_Conversion.fromGeoJSON(new ByteArrayInputStream(out.toByteArray()), in::add);
+
+		assertEquals(shapes.size(), in.size());
+		for (int i = 0; i < shapes.size(); i++) {
+			assertTrue(fromPShape(shapes.get(i)).equalsTopo(fromPShape(in.get(i))));
+		}
+	}
+
+	@Test
+	void testStreamingGeoJSONNullGeometry() throws IOException {
+		final String point = "{\"type\": \"Feature\", \"geometry\": {\"type\": \"Point\", \"coordinates\": [1, 2]}, \"properties\": {}}";
+		final String nullGeometry = "{\"type\": \"Feature\", \"geometry\" : null, \"properties\": {\"name\": \"empty\"}}";
+		final List<PShape> in = new ArrayList<>();
+		PGS_Conversion.fromGeoJSON(new ByteArrayInputStream(featureCollection(point, nullGeometry, point).getBytes(StandardCharsets.UTF_8)),
+				in::add);
+		assertEquals(2, in.size()); // feature with a null geometry is skipped
+
+		// a nested "geometry": null doesn't excuse a malformed feature
+		final String malformed = "{\"type\": \"Feature\", \"geometry\": {\"type\": \"Blob\", \"coordinates\": [1, 2]}, \"properties\": {\"geometry\": null}}";
+		assertThrows(IOException.class, () -> PGS_Conversion
+				.fromGeoJSON(new ByteArrayInputStream(featureCollection(point, malformed).getBytes(StandardCharsets.UTF_8)), in::add));
+	}
+
+	private static String featureCollection(String... features) {
+		return "{\"type\": \"FeatureCollection\", \"features\": [" + String.join(", ", features) + "]}";
+	}
+
+	@Test
+	void testStreamingWKB() throws IOException {
+		final GeometryFactory gf = new GeometryFactory();
+		final List<PShape> shapes = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			shapes.add(toPShape(gf.toGeometry(new Envelope(i * 10, i * 10 + 5.5, 0, 5))));
+		}
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		PGS_Conversion.toWKB(shapes, out);
+		final List<PShape> in = new ArrayList<>();
+		PGS_Conversion.fromWKB(new ByteArrayInputStream(out.toByteArray()), in::add);
+
+		assertEquals(shapes.size(), in.size());
+		for (int i = 0; i < shapes.size(); i++) {
+			assertTrue(fromPShape(shapes.get(i)).equalsExact(fromPShape(in.get(i))));
+		}
+	}
+
+	@Test
+	void testBinaryMesh() throws IOException {
+		final GeometryFactory gf = new GeometryFactory();
+		final List<Geometry> faces = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			faces.add(gf.toGeometry(new Envelope(i * 10, i * 10 + 10, 0, 10)));
+		}
+		faces.set(1, faces.get(1).difference(gf.toGeometry(new Envelope(12, 18, 2, 8)))); // face with hole
+		final PShape mesh = toPShape(faces);
+		mesh.getChild(2).setFill(Colors.PINK);
+
+		final Path file = Files.createTempFile("pgs", ".mesh");
+		try {
+			PGS_Conversion.toBinaryMesh(mesh, file, true);
+			final PShape in = PGS_Conversion.fromBinaryMesh(file);
+			assertEquals(mesh.getChildCount(), in.getChildCount());
+			for (int i = 0; i < mesh.getChildCount(); i++) {
+				assertTrue(fromPShape(mesh.getChild(i)).equalsTopo(fromPShape(in.getChild(i))));
+			}
+			assertEquals(Colors.PINK, PGS_Conversion.getFillColor(in.getChild(2)));
+
+			final byte[] bytes = Files.readAllBytes(file);
+			Files.write(file, Arrays.copyOf(bytes, bytes.length - 12)); // truncated
+			assertThrows(IOException.class, () -> PGS_Conversion.fromBinaryMesh(file));
+			bytes[24 + 4] = 100; // corrupt the second face offset
+			Files.write(file, bytes);
+			assertThrows(IOException.class, () -> PGS_Conversion.fromBinaryMesh(file));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	void testAdaptiveBezierFlattening() {
+		final PShape shape = new PShape(PShape.PATH);
+		shape.beginShape();
+		shape.vertex(0, 0);
+		shape.bezierVertex(0, 500, 1000, 500, 1000, 0);
+		shape.endShape(PConstants.CLOSE);
+
+		final Geometry sampled = fromPShape(shape);
+		PGS_Conversion.CURVE_MAX_DEVIATION = 0.5;
+		final Geometry flattened;
+		try {
+			flattened = fromPShape(shape);
+		} finally {
+			PGS_Conversion.CURVE_MAX_DEVIATION = 0;
+		}
+
+		assertTrue(flattened.getNumPoints() < sampled.getNumPoints() / 4);
+		assertTrue(DiscreteHausdorffDistance.distance(sampled, flattened, 0.1) < 1);
+	}
+
+	@Test
+	void testAdaptiveQuadraticFlattening() {
+		final PShape shape = new PShape(PShape.PATH);
+		shape.beginShape();
+		shape.vertex(0, 0);
+		shape.quadraticVertex(500, 500, 1000, 0);
+		shape.endShape(PConstants.CLOSE);
+
+		PGS_Conversion.CURVE_MAX_DEVIATION = 0.5;
+		final Geometry flattened;
+		try {
+			flattened = fromPShape(shape);
+		} finally {
+			PGS_Conversion.CURVE_MAX_DEVIATION = 0;
+		}
+
+		assertTrue(flattened.getNumPoints() < 100);
+		assertEquals(2 / 3d * 1000 * 250, flattened.getArea(), 0.5 * 1000); // parabolic segment area
+	}
+
 	private static boolean pointsAreEqual(Coordinate c, PVector p) {
 		return (c.x == p.x && c.y == p.y);
 	}
@@ -2,10 +2,18 @@ package micycle.pgs;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import org.junit.jupiter.api.Test;
 
+import micycle.pgs.PGS_ShapeBoolean.BooleanOperation;
+import micycle.pgs.commons.BooleanAccumulator;
+import micycle.pgs.commons.ShapeHandle;
 import processing.core.PConstants;
 import processing.core.PShape;
+import processing.core.PVector;
 
 class PGS_ShapeBooleanTests {
 
@@ -74,4 +82,201 @@ class PGS_ShapeBooleanTests {
 		assertTrue(PGS_ShapePredicates.equalsTopo(square, union.getChild(0)));
 	}
 
+	@Test
+	void testShapeHandleChain() {
+		PShape square = new PShape(PShape.GEOMETRY); // 10x10 square
+		square.beginShape();
+		square.vertex(0, 0);
+		square.vertex(10, 0);
+		square.vertex(10, 10);
+		square.vertex(0, 10);
+		square.endShape(PShape.CLOSE);
+
+		ShapeHandle a = ShapeHandle.of(square);
+		ShapeHandle b = PGS_Transformation.translate(a, 5, 0);
+		ShapeHandle intersection = PGS_ShapeBoolean.intersect(a, b);
+
+		assertFalse(intersection.hasShape()); // not converted until requested
+		assertEquals(50, PGS_ShapePredicates.area(intersection), 1e-6);
+		assertEquals(50, PGS_ShapePredicates.area(intersection.getShape()), 1e-6);
+	}
+
+	@Test
+	void testIntersectMeshes() {
+		PShape square = new PShape(PShape.GEOMETRY); // 10x10 square
+		square.beginShape();
+		square.vertex(0, 0);
+		square.vertex(10, 0);
+		square.vertex(10, 10);
+		square.vertex(0, 10);
+		square.endShape(PShape.CLOSE);
+
+		PShape meshA = PGS_Processing.split(square); // 4 quadrants
+		PShape meshB = PGS_Transformation.translate(meshA, 2.5, 0);
+		PShape overlay = PGS_ShapeBoolean.intersectMeshes(meshA, meshB);
+
+		// 3 pieces per row of quadrants; faces in different rows only touch
+		assertEquals(6, overlay.getChildCount());
+		assertEquals(75, PGS_ShapePredicates.area(overlay), 1e-6);
+		for (PShape piece : overlay.getChildren()) {
+			String[] ij = piece.getName().split(",");
+			PShape a = meshA.getChild(Integer.parseInt(ij[0]));
+			PShape b = meshB.getChild(Integer.parseInt(ij[1]));
+			assertEquals(PGS_ShapePredicates.area(PGS_ShapeBoolean.intersect(a, b)), PGS_ShapePredicates.area(piece), 1e-6);
+		}
+	}
+
+	@Test
+	void testParallelUnion() {
+		List<PShape> circles = new ArrayList<>();
+		for (PVector p : PGS_PointSet.random(0, 0, 500, 500, 3000, 0)) {
+			circles.add(PGS_Construction.createSupercircle(p.x, p.y, 10, 10, 2)); // circle
+		}
+		PShape sequential = PGS_ShapeBoolean.union(circles.subList(0, 500));
+		PShape parallel = PGS_ShapeBoolean.union(circles.subList(0, 500), 0);
+		assertEquals(PGS_ShapePredicates.area(sequential), PGS_ShapePredicates.area(parallel), 1e-3);
+
+		PShape union = PGS_ShapeBoolean.union(circles); // above threshold
+		final int threshold = PGS_ShapeBoolean.PARALLEL_UNION_THRESHOLD;
+		PGS_ShapeBoolean.PARALLEL_UNION_THRESHOLD = Integer.MAX_VALUE;
+		try {
+			sequential = PGS_ShapeBoolean.union(circles);
+		} finally {
+			PGS_ShapeBoolean.PARALLEL_UNION_THRESHOLD = threshold;
+		}
+		// parallel and sequential unions cover the same area
+		assertEquals(0, PGS_ShapePredicates.area(PGS_ShapeBoolean.symDifference(union, sequential)), 1e-3);
+
+		PShape noSlivers = PGS_ShapeBoolean.union(circles, 1);
+		assertTrue(PGS_ShapePredicates.holes(noSlivers) <= PGS_ShapePredicates.holes(union));
+		assertTrue(PGS_ShapePredicates.area(noSlivers) >= PGS_ShapePredicates.area(union));
+	}
+
+	@Test
+	void testMultiOperationOverlay() {
+		PShape a = PGS_Construction.createSupercircle(0, 0, 100, 100, 2);
+		PShape b = PGS_Construction.createSupercircle(40, 20, 100, 100, 2);
+		Map<BooleanOperation, PShape> results = PGS_ShapeBoolean.overlay(a, b);
+		assertEquals(4, results.size());
+		// extract each result in a different order to the above, from a shared graph
+		Map<BooleanOperation, PShape> reversed = PGS_ShapeBoolean.overlay(a, b, BooleanOperation.SYMDIFFERENCE, BooleanOperation.DIFFERENCE,
+				BooleanOperation.UNION, BooleanOperation.INTERSECTION);
+
+		assertTrue(PGS_ShapePredicates.equalsTopo(PGS_ShapeBoolean.intersect(a, b), results.get(BooleanOperation.INTERSECTION)));
+		assertTrue(PGS_ShapePredicates.equalsTopo(PGS_ShapeBoolean.union(a, b), results.get(BooleanOperation.UNION)));
+		assertTrue(PGS_ShapePredicates.equalsTopo(PGS_ShapeBoolean.subtract(a, b), results.get(BooleanOperation.DIFFERENCE)));
+		assertTrue(PGS_ShapePredicates.equalsTopo(PGS_ShapeBoolean.symDifference(a, b), results.get(BooleanOperation.SYMDIFFERENCE)));
+		for (BooleanOperation op : BooleanOperation.values()) {
+			assertTrue(PGS_ShapePredicates.equalsTopo(results.get(op), reversed.get(op)));
+		}
+	}
+
+	@Test
+	void testSubtractMeshPassThrough() {
+		PShape square = new PShape(PShape.GEOMETRY); // 10x10 square
+		square.beginShape();
+		square.vertex(0, 0);
+		square.vertex(10, 0);
+		square.vertex(10, 10);
+		square.vertex(0, 10);
+		square.endShape(PShape.CLOSE);
+
+		PShape mesh = PGS_Processing.split(square); // 4 quadrants
+		PShape area = PGS_Transformation.translate(PGS_Transformation.scale(square, 0.2), -3, -3); // 2x2 at (1,1)
+
+		PShape subtracted = PGS_ShapeBoolean.subtractMesh(mesh, area);
+		assertEquals(4, subtracted.getChildCount());
+		assertEquals(96, PGS_ShapePredicates.area(subtracted), 1e-6);
+		int passedThrough = 0;
+		for (PShape face : subtracted.getChildren()) {
+			assertSame(subtracted, face.getParent());
+			for (PShape original : mesh.getChildren()) {
+				assertNotSame(original, face);
+				passedThrough += PGS_ShapePredicates.equalsExact(face, original) ? 1 : 0;
+			}
+		}
+		assertEquals(3, passedThrough); // quadrants away from the area are copies of the originals
+		assertEquals(4, mesh.getChildCount()); // input mesh is unchanged
+		for (PShape original : mesh.getChildren()) {
+			assertSame(mesh, original.getParent());
+		}
+
+		PShape intersected = PGS_ShapeBoolean.intersectMesh(mesh, area);
+		assertEquals(4, PGS_ShapePredicates.area(intersected), 1e-6);
+	}
+
+	@Test
+	void testBooleanAccumulator() {
+		BooleanAccumulator accumulator = PGS_ShapeBoolean.accumulator(50);
+		PShape canvas = null;
+		List<PVector> points = PGS_PointSet.random(0, 0, 200, 200, 40, 0);
+		for (int i = 0; i < points.size(); i++) {
+			PVector p = points.get(i);
+			PShape brush = PGS_Construction.createSupercircle(p.x, p.y, 30, 30, 2);
+			if (i % 4 == 3) {
+				accumulator.subtract(brush);
+				canvas = PGS_ShapeBoolean.subtract(canvas, brush);
+			} else {
+				accumulator.union(brush);
+				canvas = canvas == null ? brush : PGS_ShapeBoolean.union(canvas, brush);
+			}
+		}
+		PShape snapshot = accumulator.snapshot();
+		assertSame(snapshot, accumulator.snapshot()); // unchanged, so cached
+		assertEquals(PGS_ShapePredicates.area(canvas), PGS_ShapePredicates.area(snapshot), 1e-3);
+		assertEquals(0, PGS_ShapePredicates.area(PGS_ShapeBoolean.symDifference(canvas, snapshot)), 1e-3);
+	}
+
+	@Test
+	void testFixedPrecisionOverlay() {
+		PShape a = PGS_Construction.createSupercircle(0, 0, 100, 100, 2);
+		PShape b = PGS_Transformation.rotateAroundCenter(a, 1e-6); // nearly coincident edges
+		PShape union = PGS_ShapeBoolean.overlay(a, b, BooleanOperation.UNION, 1e-3);
+		assertEquals(PGS_ShapePredicates.area(a), PGS_ShapePredicates.area(union), 0.1);
+		for (int i = 0; i < union.getVertexCount(); i++) { // vertices lie on the grid
+			assertEquals(Math.round(union.getVertexX(i) * 1e3) / 1e3, union.getVertexX(i), 1e-4);
+		}
+
+		PGS_ShapeBoolean.PRECISION_GRID_SIZE = 1e-3;
+		try {
+			assertTrue(PGS_ShapePredicates.equalsTopo(union, PGS_ShapeBoolean.union(a, b)));
+		} finally {
+			PGS_ShapeBoolean.PRECISION_GRID_SIZE = 0;
+		}
+	}
+
+	@Test
+	void testFixedPrecisionMeshes() {
+		PShape square = new PShape(PShape.GEOMETRY); // 10x10 square
+		square.beginShape();
+		square.vertex(0, 0);
+		square.vertex(10, 0);
+		square.vertex(10, 10);
+		square.vertex(0, 10);
+		square.endShape(PShape.CLOSE);
+
+		PShape mesh = PGS_Processing.split(PGS_Transformation.translate(square, 0.3, 0.3)); // off-grid quadrants
+		PShape containing = PGS_Transformation.translate(PGS_Transformation.scale(square, 0.7), -2, -2); // contains a quadrant
+		PShape small = PGS_Transformation.translate(PGS_Transformation.scale(square, 0.2), -3, -3); // away from 3 quadrants
+
+		PGS_ShapeBoolean.PRECISION_GRID_SIZE = 1;
+		try {
+			// faces that skip the overlay are snapped too
+			assertOnGrid(PGS_ShapeBoolean.intersectMesh(mesh, containing));
+			assertOnGrid(PGS_ShapeBoolean.subtractMesh(mesh, small));
+			assertOnGrid(PGS_ShapeBoolean.intersectMeshes(containing, mesh));
+		} finally {
+			PGS_ShapeBoolean.PRECISION_GRID_SIZE = 0;
+		}
+	}
+
+	private static void assertOnGrid(PShape shape) {
+		for (PShape face : PGS_Conversion.getChildren(shape)) {
+			for (int i = 0; i < face.getVertexCount(); i++) {
+				assertEquals(Math.round(face.getVertexX(i)), face.getVertexX(i));
+				assertEquals(Math.round(face.getVertexY(i)), face.getVertexY(i));
+			}
+		}
+	}
+
 }
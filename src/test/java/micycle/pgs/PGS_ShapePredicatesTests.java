@@ -2,9 +2,16 @@ package micycle.pgs;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.Arrays;
+import java.util.List;
+
+import org.jgrapht.graph.DefaultWeightedEdge;
+import org.jgrapht.graph.SimpleWeightedGraph;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import micycle.pgs.commons.MeshLocator;
+import micycle.pgs.commons.PreparedPShape;
 import processing.core.PShape;
 import processing.core.PVector;
 
@@ -72,4 +79,98 @@ class PGS_ShapePredicatesTests {
 		assertEquals(0, PGS_ShapePredicates.holes(coverage));
 	}
 
+	@Test
+	void testPreparedShape() {
+		final PreparedPShape prepared = PGS_ShapePredicates.prepare(square);
+		assertTrue(prepared.containsPoint(new PVector(5, 5)));
+		assertTrue(prepared.containsPoint(new PVector(10, 5))); // boundary
+		assertFalse(prepared.containsPoint(new PVector(11, 5)));
+
+		assertTrue(prepared.contains(PGS_Transformation.scale(square, 0.5)));
+		assertTrue(prepared.intersects(triangle));
+		assertFalse(prepared.disjoint(triangle));
+
+		final PShape far = PGS_Transformation.translate(square, 20, 0);
+		assertTrue(prepared.disjoint(far));
+		assertEquals(PGS_ShapePredicates.distance(square, far), prepared.distance(far), EPSILON);
+		assertEquals(10, prepared.distance(far), EPSILON);
+		assertEquals(0, prepared.distance(new PVector(5, 5)));
+		assertEquals(5, prepared.distance(new PVector(15, 5)), EPSILON);
+		assertEquals(new PVector(10, 5), prepared.nearestBoundaryPoint(new PVector(15, 5)));
+	}
+
+	@Test
+	void testPreparedPolyline() {
+		final PShape polyline = new PShape(PShape.PATH);
+		polyline.beginShape();
+		polyline.vertex(0, 0);
+		polyline.vertex(10, 0);
+		polyline.vertex(10, 10);
+		polyline.endShape(); // unclosed
+
+		final PreparedPShape prepared = PGS_ShapePredicates.prepare(polyline);
+		assertTrue(prepared.containsPoint(new PVector(5, 0)));
+		assertFalse(prepared.containsPoint(new PVector(5, 5)));
+		assertFalse(prepared.contains(square));
+		assertTrue(prepared.within(PGS_Transformation.scale(square, 2)));
+		assertTrue(prepared.intersects(square));
+
+		assertEquals(0, prepared.distance(new PVector(10, 5)));
+		assertEquals(5, prepared.distance(new PVector(5, 5)), EPSILON);
+		assertEquals(10, prepared.distance(PGS_Transformation.translate(square, 20, 0)), EPSILON);
+	}
+
+	@Test
+	void testMeshLocator() {
+		final PShape mesh = PGS_Processing.split(square); // 4 quadrants
+		final MeshLocator locator = PGS_ShapePredicates.meshLocator(mesh);
+		assertEquals(4, locator.getFaceCount());
+
+		final List<PVector> queries = Arrays.asList(new PVector(2, 2), new PVector(8, 2), new PVector(2, 8), new PVector(8, 8), new PVector(20, 20));
+		final int[] indices = locator.locateIndices(queries);
+		for (int i = 0; i < 4; i++) {
+			final PShape face = locator.getFaces().get(indices[i]);
+			assertTrue(PGS_ShapePredicates.containsPoint(face, queries.get(i)));
+			assertSame(face, locator.locate(queries.get(i)));
+		}
+		assertEquals(4, Arrays.stream(indices, 0, 4).distinct().count());
+		assertEquals(-1, indices[4]);
+		assertNull(locator.locate(queries.get(4)));
+	}
+
+	@Test
+	void testBatchContainsPoints() {
+		final List<PVector> points = PGS_PointSet.random(-5, -5, 15, 15, 50000, 0);
+		final double[] coords = new double[points.size() * 2];
+		final float[] coordsF = new float[points.size() * 2];
+		for (int i = 0; i < points.size(); i++) {
+			coords[2 * i] = coordsF[2 * i] = points.get(i).x;
+			coords[2 * i + 1] = coordsF[2 * i + 1] = points.get(i).y;
+		}
+
+		final List<Boolean> expected = PGS_ShapePredicates.containsPoints(triangle, points);
+		final boolean[] parallel = PGS_ShapePredicates.containsPoints(triangle, coords);
+		final boolean[] hilbert = PGS_ShapePredicates.containsPoints(PGS_ShapePredicates.prepare(triangle), coordsF, true);
+		for (int i = 0; i < points.size(); i++) {
+			assertEquals(expected.get(i), parallel[i]);
+			assertEquals(expected.get(i), hilbert[i]);
+		}
+	}
+
+	@Test
+	void testIntersectionGraph() {
+		PShape a = PGS_Transformation.translate(square, 0, 0);
+		PShape b = PGS_Transformation.translate(square, 5, 0); // overlaps a (area 50)
+		PShape c = PGS_Transformation.translate(square, 15, 0); // touches b
+		PShape d = PGS_Transformation.translate(square, 50, 50); // isolated
+		SimpleWeightedGraph<PShape, DefaultWeightedEdge> graph = PGS_ShapePredicates.intersectionGraph(Arrays.asList(a, b, c, d), true);
+
+		assertEquals(4, graph.vertexSet().size());
+		assertEquals(2, graph.edgeSet().size());
+		assertEquals(50, graph.getEdgeWeight(graph.getEdge(a, b)), EPSILON);
+		assertEquals(0, graph.getEdgeWeight(graph.getEdge(b, c)), EPSILON);
+		assertNull(graph.getEdge(a, c));
+		assertEquals(0, graph.degreeOf(d));
+	}
+
 }
@@ -0,0 +1,373 @@
+package micycle.pgs;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+
+import micycle.pgs.commons.FlatMesh;
+import micycle.pgs.commons.FlatVoronoi;
+import micycle.pgs.commons.LloydRelaxation;
+import micycle.pgs.commons.MeshLocator;
+import micycle.pgs.commons.PowerDiagram;
+import micycle.pgs.commons.TiledVoronoi;
+import processing.core.PShape;
+import processing.core.PVector;
+
+class PGS_VoronoiTests {
+
+	private static final double EPSILON = 1E-4;
+
+	private static final double[] BOUNDS = { 0, 0, 1000, 1000 };
+	private static final double BOUNDS_AREA = 1000 * 1000;
+
+	@Test
+	void testLloydRelaxation() {
+		final List<PVector> points = PGS_PointSet.random(0, 0, 1000, 1000, 500, 1);
+		final LloydRelaxation relaxation = PGS_Voronoi.relaxation(points, BOUNDS);
+
+		// each iteration never increases the energy of the diagram
+		double energy = energy(relaxation.getCells(), relaxation.getSites());
+		for (int i = 0; i < 5; i++) {
+			relaxation.step();
+			final double next = energy(relaxation.getCells(), relaxation.getSites());
+			assertTrue(next <= energy * (1 + EPSILON));
+			energy = next;
+		}
+		assertEquals(5, relaxation.getIteration());
+
+		final PShape cells = relaxation.getCells();
+		assertEquals(points.size(), cells.getChildCount());
+		assertEquals(BOUNDS_AREA, PGS_ShapePredicates.area(cells), BOUNDS_AREA * EPSILON);
+		for (int i = 0; i < cells.getChildCount(); i++) {
+			final int site = Integer.parseInt(cells.getChild(i).getName());
+			assertTrue(PGS_ShapePredicates.containsPoint(cells.getChild(i), relaxation.getSites().get(site)));
+		}
+
+		final int iterations = relaxation.relax(1000, 1);
+		assertTrue(iterations < 1000); // stopped once converged
+		assertEquals(5 + iterations, relaxation.getIteration());
+		assertTrue(relaxation.step() < 1);
+	}
+
+	@Test
+	void testLloydRelaxationClampsSites() {
+		final List<PVector> points = new ArrayList<>(PGS_PointSet.random(0, 0, 1000, 1000, 50, 1));
+		points.add(new PVector(-50, 500));
+		points.add(new PVector(500, 2000));
+		final LloydRelaxation relaxation = PGS_Voronoi.relaxation(points, BOUNDS);
+
+		assertEquals(new PVector(0, 500), relaxation.getSites().get(50));
+		assertEquals(new PVector(500, 1000), relaxation.getSites().get(51));
+		relaxation.relax(10, 0);
+		for (PVector site : relaxation.getSites()) {
+			assertTrue(site.x >= 0 && site.x <= 1000 && site.y >= 0 && site.y <= 1000);
+		}
+		assertEquals(BOUNDS_AREA, PGS_ShapePredicates.area(relaxation.getCells()), BOUNDS_AREA * EPSILON);
+	}
+
+	@Test
+	void testFlatVoronoi() {
+		final List<PVector> points = PGS_PointSet.random(0, 0, 1000, 1000, 500, 1);
+		final float[] coords = new float[(points.size() + 3) * 2];
+		for (int i = 0; i < points.size(); i++) {
+			coords[2 * i] = points.get(i).x;
+			coords[2 * i + 1] = points.get(i).y;
+		}
+		final int n = points.size();
+		coords[2 * n] = -10; // outside bounds
+		coords[2 * n + 1] = 500;
+		coords[2 * n + 2] = coords[6]; // duplicate of site 3
+		coords[2 * n + 3] = coords[7];
+		coords[2 * n + 4] = 500;
+		coords[2 * n + 5] = 1010; // outside bounds
+		final double[] coordsD = new double[coords.length];
+		for (int i = 0; i < coords.length; i++) {
+			coordsD[i] = coords[i];
+		}
+
+		final FlatVoronoi.Diagram diagram = PGS_Voronoi.flatVoronoi(coords, BOUNDS);
+		assertEquals(n, diagram.mesh.getFaceCount()); // one face per distinct in-bounds site
+		assertEquals(n, diagram.sites.length);
+		for (int f = 1; f < diagram.sites.length; f++) {
+			assertTrue(diagram.sites[f] > diagram.sites[f - 1]);
+		}
+		assertTrue(diagram.sites[n - 1] < n + 2); // out-of-bounds sites have no face
+		assertFalse(contains(diagram.sites, 3) && contains(diagram.sites, n + 1)); // nor does one of the duplicates
+		assertConforming(diagram.mesh);
+		assertEquals(BOUNDS_AREA, area(diagram.mesh), BOUNDS_AREA * EPSILON);
+
+		final FlatVoronoi.Diagram diagramD = PGS_Voronoi.flatVoronoi(coordsD, BOUNDS);
+		assertArrayEquals(diagram.sites, diagramD.sites);
+		assertArrayEquals(diagram.mesh.faceOffsets, diagramD.mesh.faceOffsets);
+		assertArrayEquals(diagram.mesh.vertexIndices, diagramD.mesh.vertexIndices);
+		assertArrayEquals(diagram.mesh.coords, diagramD.mesh.coords);
+	}
+
+	@Test
+	void testTiledVoronoi() {
+		final List<PVector> points = PGS_PointSet.random(0, 0, 1000, 1000, 4000, 1);
+		points.removeIf(p -> p.x > 400 && p.x < 600); // empty band: cells beside it outgrow the initial halo
+		final double[] coords = new double[points.size() * 2];
+		for (int i = 0; i < points.size(); i++) {
+			coords[2 * i] = points.get(i).x;
+			coords[2 * i + 1] = points.get(i).y;
+		}
+
+		final FlatVoronoi.Diagram global = PGS_Voronoi.flatVoronoi(coords, BOUNDS);
+		final double[] globalAreas = faceAreas(global.mesh);
+		final Map<Integer, Double> expected = new HashMap<>();
+		for (int f = 0; f < global.sites.length; f++) {
+			expected.put(global.sites[f], globalAreas[f]);
+		}
+
+		final TiledVoronoi tiled = PGS_Voronoi.tiledVoronoi(coords, BOUNDS, 100);
+		assertEquals(100, tiled.getTileCount());
+		final Map<Integer, Double> tileAreas = new ConcurrentHashMap<>();
+		tiled.forEachTile(diagram -> {
+			final double[] areas = faceAreas(diagram.mesh);
+			for (int f = 0; f < diagram.sites.length; f++) {
+				assertNull(tileAreas.put(diagram.sites[f], areas[f])); // each site in one tile only
+			}
+		});
+		assertEquals(expected.keySet(), tileAreas.keySet());
+		expected.forEach((site, area) -> assertEquals(area, tileAreas.get(site), EPSILON));
+
+		final Map<Integer, Double> cellAreas = new HashMap<>();
+		for (PShape cell : tiled.cells()) {
+			cellAreas.put(Integer.parseInt(cell.getName()), PGS_ShapePredicates.area(cell));
+		}
+		assertEquals(expected.keySet(), cellAreas.keySet());
+		expected.forEach((site, area) -> assertEquals(area, cellAreas.get(site), 1e-2)); // single-precision
+	}
+
+	@Test
+	void testPowerDiagramUnweighted() {
+		final double[] coords = randomCoords(1000, 1);
+		final FlatVoronoi.Diagram voronoi = PGS_Voronoi.flatVoronoi(coords, BOUNDS);
+		final FlatVoronoi.Diagram power = PGS_Voronoi.powerDiagram(coords, new double[coords.length / 2], BOUNDS);
+		assertArrayEquals(voronoi.sites, power.sites);
+		final double[] voronoiAreas = faceAreas(voronoi.mesh);
+		final double[] powerAreas = faceAreas(power.mesh);
+		for (int f = 0; f < powerAreas.length; f++) {
+			assertEquals(voronoiAreas[f], powerAreas[f], EPSILON);
+		}
+	}
+
+	@Test
+	void testPowerDiagram() {
+		final double[] coords = randomCoords(1000, 1);
+		final double[] weights = new double[coords.length / 2];
+		final Random random = new Random(1);
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] = Math.pow(random.nextDouble() * 50, 2);
+		}
+
+		final PowerDiagram builder = new PowerDiagram(BOUNDS);
+		final FlatVoronoi.Diagram diagram = builder.build(coords, weights);
+		assertTrue(diagram.sites.length < weights.length); // some sites are outweighed
+		assertConforming(diagram.mesh);
+		assertEquals(BOUNDS_AREA, area(diagram.mesh), BOUNDS_AREA * EPSILON);
+
+		builder.build(randomCoords(500, 2), null);
+		final FlatVoronoi.Diagram rebuilt = builder.build(coords, weights); // buffers are reused
+		assertArrayEquals(diagram.sites, rebuilt.sites);
+		assertArrayEquals(diagram.mesh.faceOffsets, rebuilt.mesh.faceOffsets);
+		assertArrayEquals(diagram.mesh.vertexIndices, rebuilt.mesh.vertexIndices);
+		assertArrayEquals(diagram.mesh.coords, rebuilt.mesh.coords);
+	}
+
+	@Test
+	void testPowerDiagramEmptyCell() {
+		final List<PVector> sites = new ArrayList<>();
+		sites.add(new PVector(500, 500, 1)); // light site, surrounded by heavy ones
+		sites.add(new PVector(450, 500, 100 * 100));
+		sites.add(new PVector(550, 500, 100 * 100));
+		sites.add(new PVector(500, 450, 100 * 100));
+		sites.add(new PVector(500, 550, 100 * 100));
+		final PShape cells = PGS_Voronoi.powerDiagram(sites, BOUNDS);
+
+		assertEquals(4, cells.getChildCount());
+		for (PShape cell : cells.getChildren()) {
+			assertFalse(cell.getName().equals("0"));
+		}
+		assertEquals(BOUNDS_AREA, PGS_ShapePredicates.area(cells), BOUNDS_AREA * EPSILON);
+	}
+
+	@Test
+	void testPowerDiagramTangentCircles() {
+		final List<PVector> circles = new ArrayList<>();
+		circles.add(new PVector(300, 500, 150 * 150)); // weight = radius squared
+		circles.add(new PVector(550, 500, 100 * 100)); // touches the first circle at x = 450
+		final PShape cells = PGS_Voronoi.powerDiagram(circles, BOUNDS);
+
+		assertEquals(2, cells.getChildCount());
+		for (PShape cell : cells.getChildren()) {
+			final boolean first = cell.getName().equals("0");
+			for (int i = 0; i < cell.getVertexCount(); i++) {
+				final float x = cell.getVertexX(i);
+				assertTrue(first ? x <= 450 + EPSILON : x >= 450 - EPSILON);
+			}
+			assertEquals(first ? 450 * 1000 : 550 * 1000, PGS_ShapePredicates.area(cell), EPSILON);
+		}
+	}
+
+	@Test
+	void testConstrainedRectangle() {
+		final PShape rectangle = new PShape(PShape.GEOMETRY);
+		rectangle.beginShape();
+		rectangle.vertex(100, 100);
+		rectangle.vertex(900, 100);
+		rectangle.vertex(900, 900);
+		rectangle.vertex(100, 900);
+		rectangle.endShape(PShape.CLOSE);
+		assertClippedCells(rectangle);
+	}
+
+	@Test
+	void testConstrainedPolygon() {
+		assertClippedCells(polygon(60)); // overlaid with the whole shape
+	}
+
+	@Test
+	void testConstrainedLargePolygon() {
+		assertClippedCells(polygon(400)); // overlaid with tiles of the shape
+	}
+
+	/**
+	 * Asserts that the cells of a constrained diagram are those given by
+	 * intersecting each cell of the unconstrained diagram with the shape.
+	 */
+	private static void assertClippedCells(PShape shape) {
+		final List<PVector> steinerPoints = PGS_PointSet.random(0, 0, 1000, 1000, 1000, 1);
+		final PShape clipped = PGS_Voronoi.innerVoronoi(shape, true, BOUNDS, steinerPoints, 0);
+		final PShape unclipped = PGS_Voronoi.innerVoronoi(shape, false, BOUNDS, steinerPoints, 0);
+
+		int expectedCount = 0;
+		for (PShape cell : unclipped.getChildren()) {
+			expectedCount += PGS_ShapePredicates.area(PGS_ShapeBoolean.intersect(cell, shape)) > 0 ? 1 : 0;
+		}
+		assertEquals(expectedCount, clipped.getChildCount());
+
+		final MeshLocator locator = PGS_ShapePredicates.meshLocator(unclipped);
+		for (PShape cell : clipped.getChildren()) {
+			final Coordinate interior = PGS_Conversion.fromPShape(cell).getInteriorPoint().getCoordinate();
+			final PShape expected = PGS_ShapeBoolean.intersect(locator.locate(new PVector((float) interior.x, (float) interior.y)), shape);
+			// shapes have single-precision coordinates
+			assertEquals(PGS_ShapePredicates.area(expected), PGS_ShapePredicates.area(cell), 1e-2);
+			assertEquals(0, PGS_ShapePredicates.area(PGS_ShapeBoolean.symDifference(expected, cell)), 1e-2);
+		}
+		assertEquals(PGS_ShapePredicates.area(shape), PGS_ShapePredicates.area(clipped), 1);
+	}
+
+	/**
+	 * Asserts that a mesh of cells filling the bounds is conforming: its vertices
+	 * are distinct, every edge is shared by two faces (with the same vertex
+	 * indices), apart from edges lying on the bounds, which belong to one face.
+	 */
+	private static void assertConforming(FlatMesh mesh) {
+		final Set<PVector> vertices = new HashSet<>();
+		for (int v = 0; v < mesh.getVertexCount(); v++) {
+			assertTrue(vertices.add(new PVector((float) mesh.getX(v), (float) mesh.getY(v))));
+		}
+		final Map<Long, Integer> edges = new HashMap<>();
+		for (int f = 0; f < mesh.getFaceCount(); f++) {
+			final int m = mesh.getFaceSize(f);
+			for (int i = 0; i < m; i++) {
+				edges.merge(FlatMesh.edgeKey(mesh.getFaceVertex(f, i), mesh.getFaceVertex(f, (i + 1) % m)), 1, Integer::sum);
+			}
+		}
+		edges.forEach((edge, faces) -> {
+			final int a = (int) (edge >>> 32), b = (int) (long) edge;
+			final boolean onBounds = (mesh.getX(a) == BOUNDS[0] && mesh.getX(b) == BOUNDS[0])
+					|| (mesh.getX(a) == BOUNDS[2] && mesh.getX(b) == BOUNDS[2]) || (mesh.getY(a) == BOUNDS[1] && mesh.getY(b) == BOUNDS[1])
+					|| (mesh.getY(a) == BOUNDS[3] && mesh.getY(b) == BOUNDS[3]);
+			assertEquals(onBounds ? 1 : 2, faces);
+		});
+	}
+
+	/**
+	 * @return the area of each face of the mesh
+	 */
+	private static double[] faceAreas(FlatMesh mesh) {
+		final double[] areas = new double[mesh.getFaceCount()];
+		for (int f = 0; f < mesh.getFaceCount(); f++) {
+			final int m = mesh.getFaceSize(f);
+			double area = 0;
+			for (int i = 0; i < m; i++) {
+				final int a = mesh.getFaceVertex(f, i), b = mesh.getFaceVertex(f, (i + 1) % m);
+				area += mesh.getX(a) * mesh.getY(b) - mesh.getX(b) * mesh.getY(a);
+			}
+			areas[f] = Math.abs(area) / 2;
+		}
+		return areas;
+	}
+
+	private static double area(FlatMesh mesh) {
+		return Arrays.stream(faceAreas(mesh)).sum();
+	}
+
+	private static double[] randomCoords(int n, long seed) {
+		final List<PVector> points = PGS_PointSet.random(0, 0, 1000, 1000, n, seed);
+		final double[] coords = new double[n * 2];
+		for (int i = 0; i < n; i++) {
+			coords[2 * i] = points.get(i).x;
+			coords[2 * i + 1] = points.get(i).y;
+		}
+		return coords;
+	}
+
+	private static boolean contains(int[] values, int value) {
+		return Arrays.stream(values).anyMatch(v -> v == value);
+	}
+
+	/**
+	 * A star-like (non-convex) polygon having the given number of vertices.
+	 */
+	private static PShape polygon(int vertices) {
+		final PShape polygon = new PShape(PShape.GEOMETRY);
+		polygon.beginShape();
+		for (int i = 0; i < vertices; i++) {
+			final double angle = Math.PI * 2 * i / vertices;
+			final double radius = i % 2 == 0 ? 400 : 300;
+			polygon.vertex((float) (500 + radius * Math.cos(angle)), (float) (500 + radius * Math.sin(angle)));
+		}
+		polygon.endShape(PShape.CLOSE);
+		return polygon;
+	}
+
+	/**
+	 * The energy minimised by Lloyd relaxation: the sum, over the cells, of the
+	 * second moment of area of each cell about its site.
+	 */
+	private static double energy(PShape cells, List<PVector> sites) {
+		double energy = 0;
+		for (PShape cell : cells.getChildren()) {
+			final PVector site = sites.get(Integer.parseInt(cell.getName()));
+			final int n = cell.getVertexCount();
+			double moment = 0;
+			for (int i = 0; i < n; i++) {
+				final double x0 = cell.getVertexX(i) - site.x, y0 = cell.getVertexY(i) - site.y;
+				final double x1 = cell.getVertexX((i + 1) % n) - site.x, y1 = cell.getVertexY((i + 1) % n) - site.y;
+				moment += (x0 * y1 - x1 * y0) * (x0 * x0 + x0 * x1 + x1 * x1 + y0 * y0 + y0 * y1 + y1 * y1);
+			}
+			energy += Math.abs(moment) / 12;
+		}
+		return energy;
+	}
+
+}